@@ -0,0 +1,91 @@
+package com.mackentoch.beaconsandroid;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.altbeacon.beacon.Region;
+import org.altbeacon.beacon.distance.DistanceCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranging payloads of synthetic cycles of 1, 50, 500 and 5000 beacons, in both payload
+ * formats, built into JavaOnlyMap / JavaOnlyArray instead of the native containers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public class BeaconSerializerBenchmark {
+  static final String UUID = "2f234454-cf6d-4a0f-adf2-f4911ba9ffa6";
+
+  static final BeaconSerializer.ContainerFactory JAVA_ONLY_CONTAINERS = new BeaconSerializer.ContainerFactory() {
+    @Override
+    public WritableMap createMap() {
+      return new JavaOnlyMap();
+    }
+
+    @Override
+    public WritableArray createArray() {
+      return new JavaOnlyArray();
+    }
+  };
+
+  @Param({"1", "50", "500", "5000"})
+  public int size;
+
+  @Param({"map", "compact"})
+  public String format;
+
+  private BeaconSerializer mSerializer;
+  private List<Beacon> mBeacons;
+  private Region mRegion;
+
+  @Setup
+  public void setUp() {
+    Beacon.setDistanceCalculator(new DistanceCalculator() {
+      @Override
+      public double calculateDistance(int txPower, double rssi) {
+        return Math.pow(10, (txPower - rssi) / 20);
+      }
+    });
+    mSerializer = new BeaconSerializer(JAVA_ONLY_CONTAINERS);
+    mSerializer.setPayloadFormat("compact".equals(format) ? BeaconSerializer.PAYLOAD_FORMAT_COMPACT : BeaconSerializer.PAYLOAD_FORMAT_MAP);
+    mRegion = new Region("benchmark", Identifier.parse(UUID), null, null);
+    mBeacons = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      mBeacons.add(new Beacon.Builder()
+        // a few uuids shared by many beacons, as in real deployments
+        .setId1(String.format(Locale.US, "2f234454-cf6d-4a0f-adf2-%012x", i % 8))
+        .setId2(String.valueOf(i / 100))
+        .setId3(String.valueOf(i % 100))
+        .setRssi(-50 - i % 40)
+        .setTxPower(-59)
+        .setBluetoothAddress(String.format(Locale.US, "00:00:00:00:%02X:%02X", (i >> 8) & 0xff, i & 0xff))
+        .build());
+    }
+  }
+
+  @Benchmark
+  public WritableMap serializeRanging() {
+    return mSerializer.serializeRanging(mBeacons, mRegion, null);
+  }
+}
@@ -0,0 +1,39 @@
+package com.mackentoch.beaconsandroid;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Collection;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs the JMH benchmarks of this source set with the allocation profiler (gc.alloc.rate.norm
+ * is the bytes allocated per operation) and writes them to build/reports/benchmark.
+ * This source set is only compiled with: ./gradlew testDebugUnitTest -Pbenchmark
+ */
+public class BenchmarkRunner {
+  @Test
+  public void run() throws RunnerException {
+    File reportDir = new File("build/reports/benchmark");
+    reportDir.mkdirs();
+    Options options = new OptionsBuilder()
+      .include(BeaconSerializerBenchmark.class.getName())
+      .include(RegionBenchmark.class.getName())
+      // in the test JVM: a forked JVM would not get the class path of the gradle test worker
+      .forks(0)
+      .addProfiler(GCProfiler.class)
+      .resultFormat(ResultFormatType.JSON)
+      .result(new File(reportDir, "results.json").getPath())
+      .build();
+    Collection<RunResult> results = new Runner(options).run();
+    assertFalse(results.isEmpty());
+  }
+}
@@ -0,0 +1,60 @@
+package com.mackentoch.beaconsandroid;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.altbeacon.beacon.Region;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per region and per beacon helpers: monitoring payload, region payload, region creation
+ * from the JS arguments and proximity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public class RegionBenchmark {
+  // one per proximity, read in turn so the branch can not be folded
+  private static final double[] DISTANCES = {-1, 0.2, 0.9, 1.5, 2.9, 3, 7.5, 40};
+
+  private BeaconSerializer mSerializer;
+  private Region mRegion;
+  private int mNext;
+
+  @Setup
+  public void setUp() {
+    mSerializer = new BeaconSerializer(BeaconSerializerBenchmark.JAVA_ONLY_CONTAINERS);
+    mRegion = BeaconsAndroidModule.createRegion("benchmark", BeaconSerializerBenchmark.UUID, "2", "1");
+  }
+
+  @Benchmark
+  public WritableMap serializeMonitoring() {
+    return mSerializer.serializeMonitoring(mRegion);
+  }
+
+  @Benchmark
+  public WritableMap serializeRegion() {
+    return mSerializer.serializeRegion(mRegion);
+  }
+
+  @Benchmark
+  public Region createRegion() {
+    return BeaconsAndroidModule.createRegion("benchmark", BeaconSerializerBenchmark.UUID, "2", "1");
+  }
+
+  @Benchmark
+  public String getProximity() {
+    return BeaconSerializer.getProximity(DISTANCES[mNext++ & 7]);
+  }
+}
@@ -0,0 +1,196 @@
+package com.mackentoch.beaconsandroid;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.altbeacon.beacon.Beacon;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adapts the between scan periods to the detection activity.
+ * Any change (a beacon appearing or disappearing in a ranged region, a region enter or exit)
+ * snaps both periods back to their minimum; every stableInterval without change doubles them,
+ * up to their maximum. A stable or empty set therefore settles on the longest periods.
+ * Periods are also re-evaluated every stableInterval, so that monitoring alone (no ranging
+ * cycle) backs off too. The listener is called outside the state lock, one call at a time,
+ * with the latest periods.
+ */
+class AdaptiveScanScheduler {
+  static final long DEFAULT_STABLE_INTERVAL = 10000;
+  private static final long MIN_BACKOFF_BASE = 1000;
+
+  interface PeriodsListener {
+    void onPeriodsChanged(long foregroundBetweenScanPeriod, long backgroundBetweenScanPeriod);
+
+    /**
+     * Called once adaptive scanning was disabled, no period change follows.
+     */
+    void onDisabled();
+  }
+
+  static final class Config {
+    final boolean enabled;
+    final long foregroundMin;
+    final long foregroundMax;
+    final long backgroundMin;
+    final long backgroundMax;
+    final long stableInterval;
+
+    Config(boolean enabled, long foregroundMin, long foregroundMax, long backgroundMin, long backgroundMax, long stableInterval) {
+      this.enabled = enabled;
+      this.foregroundMin = Math.max(0, foregroundMin);
+      this.foregroundMax = Math.max(this.foregroundMin, foregroundMax);
+      this.backgroundMin = Math.max(0, backgroundMin);
+      this.backgroundMax = Math.max(this.backgroundMin, backgroundMax);
+      this.stableInterval = stableInterval > 0 ? stableInterval : DEFAULT_STABLE_INTERVAL;
+    }
+  }
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, Set<Beacon>> mLastBeacons = new HashMap<>();
+  private final PeriodsListener mListener;
+  private final Object mListenerLock = new Object();
+  private Config mConfig;
+  private long mLastChangeTime;
+  private long mAppliedForeground = -1;
+  private long mAppliedBackground = -1;
+  // only accessed under mListenerLock
+  private long mNotifiedForeground = -1;
+  private long mNotifiedBackground = -1;
+
+  private final Runnable mEvaluateRunnable = new Runnable() {
+    @Override
+    public void run() {
+      synchronized (AdaptiveScanScheduler.this) {
+        if (!isEnabled()) {
+          return;
+        }
+        evaluate();
+        mHandler.postDelayed(this, mConfig.stableInterval);
+      }
+      notifyListener();
+    }
+  };
+
+  AdaptiveScanScheduler(PeriodsListener listener) {
+    this.mListener = listener;
+  }
+
+  synchronized boolean isEnabled() {
+    return mConfig != null && mConfig.enabled;
+  }
+
+  void setConfig(Config config) {
+    boolean wasEnabled;
+    synchronized (this) {
+      wasEnabled = isEnabled();
+      mConfig = config;
+      mLastBeacons.clear();
+      mAppliedForeground = -1;
+      mAppliedBackground = -1;
+      mHandler.removeCallbacks(mEvaluateRunnable);
+      if (config.enabled) {
+        onChange();
+        mHandler.postDelayed(mEvaluateRunnable, config.stableInterval);
+      }
+    }
+    synchronized (mListenerLock) {
+      mNotifiedForeground = -1;
+      mNotifiedBackground = -1;
+      if (wasEnabled && !config.enabled) {
+        mListener.onDisabled();
+      }
+    }
+    notifyListener();
+  }
+
+  void onRangingCycle(String regionId, Collection<Beacon> beacons) {
+    synchronized (this) {
+      if (!isEnabled()) {
+        return;
+      }
+      Set<Beacon> previous = mLastBeacons.get(regionId);
+      boolean changed = previous == null ? !beacons.isEmpty() : previous.size() != beacons.size() || !previous.containsAll(beacons);
+      if (changed) {
+        mLastBeacons.put(regionId, new HashSet<>(beacons));
+        onChange();
+      } else {
+        evaluate();
+      }
+    }
+    notifyListener();
+  }
+
+  void onRegionTransition() {
+    synchronized (this) {
+      if (!isEnabled()) {
+        return;
+      }
+      onChange();
+    }
+    notifyListener();
+  }
+
+  synchronized void remove(String regionId) {
+    mLastBeacons.remove(regionId);
+  }
+
+  synchronized void clear() {
+    mLastBeacons.clear();
+  }
+
+  synchronized void shutdown() {
+    mHandler.removeCallbacks(mEvaluateRunnable);
+  }
+
+  private void onChange() {
+    mLastChangeTime = SystemClock.elapsedRealtime();
+    evaluate();
+  }
+
+  private void evaluate() {
+    Config config = mConfig;
+    long stableTime = SystemClock.elapsedRealtime() - mLastChangeTime;
+    // 2^30 times any minimum period is far beyond any maximum
+    int level = (int) Math.min(30, stableTime / config.stableInterval);
+    mAppliedForeground = scale(config.foregroundMin, config.foregroundMax, level);
+    mAppliedBackground = scale(config.backgroundMin, config.backgroundMax, level);
+  }
+
+  /**
+   * Hands the latest periods to the listener, unless they were already notified or adaptive
+   * scanning was disabled meanwhile.
+   */
+  private void notifyListener() {
+    synchronized (mListenerLock) {
+      long foreground;
+      long background;
+      synchronized (this) {
+        if (!isEnabled()) {
+          return;
+        }
+        foreground = mAppliedForeground;
+        background = mAppliedBackground;
+      }
+      if (foreground == mNotifiedForeground && background == mNotifiedBackground) {
+        return;
+      }
+      mNotifiedForeground = foreground;
+      mNotifiedBackground = background;
+      mListener.onPeriodsChanged(foreground, background);
+    }
+  }
+
+  private static long scale(long min, long max, int level) {
+    if (level == 0) {
+      return min;
+    }
+    return Math.min(max, Math.max(min, MIN_BACKOFF_BASE) << level);
+  }
+}
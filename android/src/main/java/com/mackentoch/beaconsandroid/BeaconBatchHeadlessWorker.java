@@ -0,0 +1,60 @@
+package com.mackentoch.beaconsandroid;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.Data;
+import androidx.work.WorkerParameters;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.jstasks.HeadlessJsTaskConfig;
+
+public class BeaconBatchHeadlessWorker extends HeadlessJsTaskWorker {
+  static final String KEY_IDENTIFIERS = "identifiers";
+  static final String KEY_UUIDS = "uuids";
+  static final String KEY_MAJORS = "majors";
+  static final String KEY_MINORS = "minors";
+  static final String KEY_EVENTS = "events";
+  private static final long TIMEOUT_DEFAULT = 60000;
+  private static final String TASK_KEY = "ReactNativeBeaconBatchHeadlessTask";
+
+  public BeaconBatchHeadlessWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+    super(context, params);
+  }
+
+  @Nullable
+  @Override
+  protected HeadlessJsTaskConfig getTaskConfig(WritableMap data) {
+    Data inputData = getInputData();
+    String[] identifiers = inputData.getStringArray(KEY_IDENTIFIERS);
+    String[] uuids = inputData.getStringArray(KEY_UUIDS);
+    int[] majors = inputData.getIntArray(KEY_MAJORS);
+    int[] minors = inputData.getIntArray(KEY_MINORS);
+    String[] events = inputData.getStringArray(KEY_EVENTS);
+    if (identifiers == null || uuids == null || majors == null || minors == null || events == null) {
+      return null;
+    }
+    WritableArray transitions = new WritableNativeArray();
+    for (int i = 0; i < identifiers.length; i++) {
+      WritableMap transition = new WritableNativeMap();
+      transition.putString("identifier", identifiers[i]);
+      transition.putString("uuid", uuids[i]);
+      transition.putInt("major", majors[i]);
+      transition.putInt("minor", minors[i]);
+      transition.putString("event", events[i]);
+      transitions.pushMap(transition);
+    }
+    WritableMap batch = new WritableNativeMap();
+    batch.putArray("events", transitions);
+    return new HeadlessJsTaskConfig(
+      TASK_KEY,
+      batch,
+      TIMEOUT_DEFAULT,
+      false
+    );
+  }
+}
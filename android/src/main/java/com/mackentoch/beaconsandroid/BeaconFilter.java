@@ -0,0 +1,130 @@
+package com.mackentoch.beaconsandroid;
+
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allow-list applied to ranged beacons before anything else sees them.
+ * Rules are indexed by uuid, then by major or major / minor pair, so a lookup is a couple of
+ * hash probes without any allocation. The enabled flag, rssi floor and rules form one immutable
+ * config swapped as a whole: the scan thread filters each cycle with a consistent one, without
+ * locking.
+ */
+class BeaconFilter {
+  static final int RSSI_NONE = Integer.MIN_VALUE;
+
+  /**
+   * Not modified once passed to {@link #setConfig}.
+   */
+  static final class Rules {
+    private final Map<Identifier, UuidRule> mUuids = new HashMap<>();
+
+    /**
+     * major / minor are -1 for any.
+     */
+    void allow(String uuid, int major, int minor) {
+      Identifier id1 = Identifier.parse(uuid);
+      UuidRule rule = mUuids.get(id1);
+      if (rule == null) {
+        rule = new UuidRule();
+        mUuids.put(id1, rule);
+      }
+      if (major == -1) {
+        rule.any = true;
+      } else if (minor == -1) {
+        rule.majors.put(major, true);
+      } else {
+        rule.pairs.put(pairOf(major, minor), true);
+      }
+    }
+  }
+
+  private static final class UuidRule {
+    boolean any;
+    final SparseBooleanArray majors = new SparseBooleanArray();
+    final SparseBooleanArray pairs = new SparseBooleanArray();
+  }
+
+  private static final class Config {
+    final boolean enabled;
+    final int minRssi;
+    @Nullable
+    final Rules rules;
+
+    Config(boolean enabled, int minRssi, @Nullable Rules rules) {
+      this.enabled = enabled;
+      this.minRssi = minRssi;
+      this.rules = rules;
+    }
+  }
+
+  private volatile Config mConfig = new Config(false, RSSI_NONE, null);
+
+  boolean isEnabled() {
+    return mConfig.enabled;
+  }
+
+  /**
+   * @param rules null to let every identifier through (rssi floor only)
+   */
+  void setConfig(boolean enabled, int minRssi, @Nullable Rules rules) {
+    mConfig = new Config(enabled, minRssi, rules);
+  }
+
+  /**
+   * @return beacons itself when disabled, otherwise a new list of the accepted beacons
+   */
+  Collection<Beacon> filter(Collection<Beacon> beacons) {
+    Config config = mConfig;
+    if (!config.enabled) {
+      return beacons;
+    }
+    List<Beacon> filtered = new ArrayList<>(beacons.size());
+    for (Beacon beacon : beacons) {
+      if (accepts(config, beacon)) {
+        filtered.add(beacon);
+      }
+    }
+    return filtered;
+  }
+
+  private static boolean accepts(Config config, Beacon beacon) {
+    if (beacon.getRssi() < config.minRssi) {
+      return false;
+    }
+    Rules rules = config.rules;
+    if (rules == null) {
+      return true;
+    }
+    List<Identifier> identifiers = beacon.getIdentifiers();
+    if (identifiers.isEmpty()) {
+      return false;
+    }
+    UuidRule rule = rules.mUuids.get(identifiers.get(0));
+    if (rule == null) {
+      return false;
+    }
+    if (rule.any) {
+      return true;
+    }
+    if (identifiers.size() < 3 || identifiers.get(1).getByteCount() > 2 || identifiers.get(2).getByteCount() > 2) {
+      return false;
+    }
+    int major = identifiers.get(1).toInt();
+    return rule.majors.get(major) || rule.pairs.get(pairOf(major, identifiers.get(2).toInt()));
+  }
+
+  private static int pairOf(int major, int minor) {
+    return (major << 16) | (minor & 0xffff);
+  }
+}
@@ -0,0 +1,58 @@
+package com.mackentoch.beaconsandroid;
+
+import android.util.SparseIntArray;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense int index of beacon identities (uuid, major, minor), so that per beacon state can
+ * live in primitive arrays. Lookups of ranged beacons are two hash probes, without allocation.
+ */
+class BeaconIdentityIndex {
+  private final Map<Identifier, SparseIntArray> mIndexes = new HashMap<>();
+  private int mSize;
+
+  /**
+   * @return the index of the identity, a new one when it was not known yet
+   */
+  int add(String uuid, int major, int minor) {
+    Identifier id1 = Identifier.parse(uuid);
+    SparseIntArray byPair = mIndexes.get(id1);
+    if (byPair == null) {
+      byPair = new SparseIntArray();
+      mIndexes.put(id1, byPair);
+    }
+    int key = pairOf(major, minor);
+    int index = byPair.get(key, -1);
+    if (index == -1) {
+      index = mSize++;
+      byPair.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * @return the index of the beacon identity, -1 when unknown
+   */
+  int lookUp(Beacon beacon) {
+    List<Identifier> identifiers = beacon.getIdentifiers();
+    if (identifiers.size() < 3 || identifiers.get(1).getByteCount() > 2 || identifiers.get(2).getByteCount() > 2) {
+      return -1;
+    }
+    SparseIntArray byPair = mIndexes.get(identifiers.get(0));
+    return byPair != null ? byPair.get(pairOf(identifiers.get(1).toInt(), identifiers.get(2).toInt()), -1) : -1;
+  }
+
+  int size() {
+    return mSize;
+  }
+
+  private static int pairOf(int major, int minor) {
+    return (major << 16) | (minor & 0xffff);
+  }
+}
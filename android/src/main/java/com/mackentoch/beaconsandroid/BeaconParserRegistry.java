@@ -0,0 +1,123 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.BeaconParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the parsers of the BeaconManager parser list.
+ * A layout is compiled once and cached; a layout already in the list is never added again,
+ * since every advertisement goes through every parser. Parsers are created with their layout
+ * as identifier, so the beacons they produce can be counted back to them, and removal works
+ * (BeaconParser equality requires an identifier).
+ */
+class BeaconParserRegistry {
+  static final String IBEACON_LAYOUT = "m:0-3=4c000215,i:4-19,i:20-21,i:22-23,p:24-24";
+
+  private final List<BeaconParser> mParsers;
+  private final Map<String, BeaconParser> mCompiled = new HashMap<>();
+  private final ConcurrentHashMap<String, AtomicLong> mMatchCounts = new ConcurrentHashMap<>();
+
+  BeaconParserRegistry(List<BeaconParser> parsers) {
+    this.mParsers = parsers;
+  }
+
+  /**
+   * @return false when the layout is already used for detection
+   */
+  synchronized boolean add(String layout) {
+    if (indexOf(layout) >= 0) {
+      return false;
+    }
+    mParsers.add(compile(layout));
+    return true;
+  }
+
+  synchronized void remove(String layout) {
+    int index;
+    while ((index = indexOf(layout)) >= 0) {
+      mParsers.remove(index);
+    }
+  }
+
+  /**
+   * Makes layouts the exact parser list. Every layout is compiled before the list is touched,
+   * so an invalid layout leaves it unchanged, and missing parsers are added before the others
+   * are removed so that a kept layout is never missing from a scan.
+   */
+  synchronized void replaceAll(Collection<String> layouts) {
+    Set<String> wanted = new LinkedHashSet<>();
+    List<BeaconParser> compiled = new ArrayList<>(layouts.size());
+    for (String layout : layouts) {
+      if (wanted.add(layout)) {
+        compiled.add(compile(layout));
+      }
+    }
+    for (BeaconParser parser : compiled) {
+      if (indexOf(parser.getLayout()) < 0) {
+        mParsers.add(parser);
+      }
+    }
+    for (int i = mParsers.size() - 1; i >= 0; i--) {
+      if (!wanted.contains(mParsers.get(i).getLayout())) {
+        mParsers.remove(i);
+      }
+    }
+  }
+
+  void recordMatch(@Nullable String parserIdentifier) {
+    if (parserIdentifier == null) {
+      return;
+    }
+    AtomicLong count = mMatchCounts.get(parserIdentifier);
+    if (count == null) {
+      AtomicLong created = new AtomicLong();
+      count = mMatchCounts.putIfAbsent(parserIdentifier, created);
+      if (count == null) {
+        count = created;
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  long getMatchCount(@Nullable String parserIdentifier) {
+    AtomicLong count = parserIdentifier != null ? mMatchCounts.get(parserIdentifier) : null;
+    return count != null ? count.get() : 0;
+  }
+
+  void resetMatchCounts() {
+    mMatchCounts.clear();
+  }
+
+  synchronized List<BeaconParser> getParsers() {
+    return new ArrayList<>(mParsers);
+  }
+
+  private BeaconParser compile(String layout) {
+    BeaconParser parser = mCompiled.get(layout);
+    if (parser == null) {
+      parser = new BeaconParser(layout).setBeaconLayout(layout);
+      mCompiled.put(layout, parser);
+    }
+    return parser;
+  }
+
+  private int indexOf(String layout) {
+    for (int i = 0; i < mParsers.size(); i++) {
+      if (layout.equals(mParsers.get(i).getLayout())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,132 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps only the K best beacons of a ranged region (closest or strongest) using a bounded heap,
+ * and remembers the nearest one so that changes of the nearest beacon can be reported.
+ * Smoothed values from the region tracker are used when the region is tracked: they are read
+ * once per frame, then the heap only compares those scores.
+ */
+class BeaconRanker {
+  static final int SORT_BY_DISTANCE = 0;
+  static final int SORT_BY_RSSI = 1;
+
+  private final int mTopK;
+  private final int mSortBy;
+  @Nullable
+  private Beacon mNearest;
+
+  BeaconRanker(int topK, int sortBy) {
+    this.mTopK = topK;
+    this.mSortBy = sortBy == SORT_BY_RSSI ? SORT_BY_RSSI : SORT_BY_DISTANCE;
+  }
+
+  List<Beacon> selectTop(Collection<Beacon> beacons, @Nullable BeaconTracker tracker) {
+    Beacon[] items = beacons.toArray(new Beacon[0]);
+    double[] scores = scores(items, tracker);
+    int k = mTopK > 0 ? Math.min(mTopK, items.length) : items.length;
+    // max heap of item indexes: the worst of the best k so far on top
+    int[] heap = new int[k];
+    int size = 0;
+    for (int i = 0; i < items.length; i++) {
+      if (size < k) {
+        heap[size] = i;
+        siftUp(heap, size++, scores);
+      } else if (k > 0 && isWorse(heap[0], i, scores)) {
+        heap[0] = i;
+        siftDown(heap, size, scores);
+      }
+    }
+    Beacon[] top = new Beacon[size];
+    while (size > 0) {
+      top[--size] = items[heap[0]];
+      heap[0] = heap[size];
+      siftDown(heap, size, scores);
+    }
+    return new ArrayList<>(Arrays.asList(top));
+  }
+
+  /**
+   * @return true when the nearest beacon differs from the one of the previous cycle
+   */
+  synchronized boolean updateNearest(List<Beacon> ranked) {
+    Beacon nearest = ranked.isEmpty() ? null : ranked.get(0);
+    boolean changed = nearest == null ? mNearest != null : !nearest.equals(mNearest);
+    mNearest = nearest;
+    return changed;
+  }
+
+  /**
+   * Scores of the whole frame, lower is better, with the tracker read once under its lock.
+   */
+  private double[] scores(Beacon[] beacons, @Nullable BeaconTracker tracker) {
+    boolean byRssi = mSortBy == SORT_BY_RSSI;
+    double[] scores = new double[beacons.length];
+    if (tracker != null) {
+      tracker.getSmoothedValues(beacons, byRssi, scores);
+    } else {
+      Arrays.fill(scores, Double.NaN);
+    }
+    for (int i = 0; i < beacons.length; i++) {
+      double smoothed = scores[i];
+      if (byRssi) {
+        scores[i] = -(Double.isNaN(smoothed) ? beacons[i].getRssi() : smoothed);
+      } else {
+        double distance = Double.isNaN(smoothed) ? BeaconSerializer.getSafeDistance(beacons[i]) : smoothed;
+        scores[i] = distance < 0 ? Double.MAX_VALUE : distance;
+      }
+    }
+    return scores;
+  }
+
+  /**
+   * Ties go to the beacon ranged first.
+   */
+  private static boolean isWorse(int a, int b, double[] scores) {
+    int order = Double.compare(scores[a], scores[b]);
+    return order > 0 || (order == 0 && a > b);
+  }
+
+  private static void siftUp(int[] heap, int position, double[] scores) {
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (!isWorse(heap[position], heap[parent], scores)) {
+        return;
+      }
+      swap(heap, position, parent);
+      position = parent;
+    }
+  }
+
+  private static void siftDown(int[] heap, int size, double[] scores) {
+    int position = 0;
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= size) {
+        return;
+      }
+      if (child + 1 < size && isWorse(heap[child + 1], heap[child], scores)) {
+        child++;
+      }
+      if (!isWorse(heap[child], heap[position], scores)) {
+        return;
+      }
+      swap(heap, position, child);
+      position = child;
+    }
+  }
+
+  private static void swap(int[] heap, int i, int j) {
+    int item = heap[i];
+    heap[i] = heap[j];
+    heap[j] = item;
+  }
+}
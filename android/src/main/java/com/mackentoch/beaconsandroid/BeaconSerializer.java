@@ -0,0 +1,215 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.altbeacon.beacon.Region;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the ranging and monitoring payloads sent to JS.
+ * Identifier string forms are cached (uuid strings are the bulk of ranging allocations) and
+ * distance is read once per beacon. The compact format sends every beacon as a tuple
+ * [uuid, major, minor, rssi, distance, proximity] instead of a map, followed by
+ * [smoothedRssi, smoothedDistance, dwellTime] when the region is tracked.
+ * Containers come from a {@link ContainerFactory} so payloads can be built without the
+ * React Native runtime (e.g. from a plain JVM benchmark harness).
+ */
+class BeaconSerializer {
+  static final int PAYLOAD_FORMAT_MAP = 0;
+  static final int PAYLOAD_FORMAT_COMPACT = 1;
+  private static final int IDENTIFIER_CACHE_SIZE = 1024;
+
+  interface ContainerFactory {
+    WritableMap createMap();
+
+    WritableArray createArray();
+  }
+
+  static final ContainerFactory NATIVE_CONTAINERS = new ContainerFactory() {
+    @Override
+    public WritableMap createMap() {
+      return new WritableNativeMap();
+    }
+
+    @Override
+    public WritableArray createArray() {
+      return new WritableNativeArray();
+    }
+  };
+
+  private final ContainerFactory mContainers;
+
+  private final Map<Identifier, String> mIdentifierStrings = new LinkedHashMap<Identifier, String>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Identifier, String> eldest) {
+      return size() > IDENTIFIER_CACHE_SIZE;
+    }
+  };
+  private volatile int mPayloadFormat = PAYLOAD_FORMAT_MAP;
+
+  BeaconSerializer() {
+    this(NATIVE_CONTAINERS);
+  }
+
+  BeaconSerializer(ContainerFactory containers) {
+    this.mContainers = containers;
+  }
+
+  void setPayloadFormat(int format) {
+    mPayloadFormat = format == PAYLOAD_FORMAT_COMPACT ? PAYLOAD_FORMAT_COMPACT : PAYLOAD_FORMAT_MAP;
+  }
+
+  synchronized String identifierToString(Identifier identifier) {
+    if (identifier == null) {
+      return "";
+    }
+    String value = mIdentifierStrings.get(identifier);
+    if (value == null) {
+      value = identifier.toString();
+      mIdentifierStrings.put(identifier, value);
+    }
+    return value;
+  }
+
+  WritableMap createMap() {
+    return mContainers.createMap();
+  }
+
+  WritableArray createArray() {
+    return mContainers.createArray();
+  }
+
+  WritableMap serializeMonitoring(Region region) {
+    WritableMap map = mContainers.createMap();
+    map.putString("identifier", region.getUniqueId());
+    map.putString("uuid", identifierToString(region.getId1()));
+    map.putInt("major", region.getId2() != null ? region.getId2().toInt() : 0);
+    map.putInt("minor", region.getId3() != null ? region.getId3().toInt() : 0);
+    return map;
+  }
+
+  WritableMap serializeRanging(Collection<Beacon> beacons, Region region, @Nullable BeaconTracker tracker) {
+    WritableMap map = mContainers.createMap();
+    map.putMap("region", serializeRegion(region));
+    map.putArray("beacons", serializeBeacons(beacons, tracker));
+    return map;
+  }
+
+  WritableMap serializeRangingDelta(RangingDeltaTracker.Delta delta, Region region, @Nullable BeaconTracker tracker) {
+    WritableMap map = mContainers.createMap();
+    map.putMap("region", serializeRegion(region));
+    map.putArray("added", serializeBeacons(delta.added, tracker));
+    map.putArray("changed", serializeBeacons(delta.changed, tracker));
+    map.putArray("removed", serializeBeacons(delta.removed, tracker));
+    return map;
+  }
+
+  WritableMap serializeNearest(@Nullable Beacon nearest, Region region, @Nullable BeaconTracker tracker) {
+    WritableMap map = mContainers.createMap();
+    map.putMap("region", serializeRegion(region));
+    if (nearest != null) {
+      map.putMap("beacon", serializeMap(nearest, tracker));
+    } else {
+      map.putNull("beacon");
+    }
+    return map;
+  }
+
+  WritableMap serializeRegion(Region region) {
+    WritableMap r = mContainers.createMap();
+    r.putString("identifier", region.getUniqueId());
+    r.putString("uuid", identifierToString(region.getId1()));
+    return r;
+  }
+
+  WritableArray serializeBeacons(Collection<Beacon> beacons, @Nullable BeaconTracker tracker) {
+    WritableArray a = mContainers.createArray();
+    boolean compact = mPayloadFormat == PAYLOAD_FORMAT_COMPACT;
+    for (Beacon beacon : beacons) {
+      if (compact) {
+        a.pushArray(serializeCompact(beacon, tracker));
+      } else {
+        a.pushMap(serializeMap(beacon, tracker));
+      }
+    }
+    return a;
+  }
+
+  private WritableMap serializeMap(Beacon beacon, @Nullable BeaconTracker tracker) {
+    WritableMap b = mContainers.createMap();
+    List<Identifier> identifiers = beacon.getIdentifiers();
+    b.putString("uuid", identifierToString(identifiers.get(0)));
+    if (identifiers.size() > 2) {
+      b.putInt("major", identifiers.get(1).toInt());
+      b.putInt("minor", identifiers.get(2).toInt());
+    }
+    b.putInt("rssi", beacon.getRssi());
+    double distance = getSafeDistance(beacon);
+    b.putDouble("distance", distance);
+    b.putString("proximity", getProximity(distance));
+    int slot = tracker != null ? tracker.slotOf(beacon) : -1;
+    if (slot != -1) {
+      b.putDouble("smoothedRssi", tracker.getSmoothedRssi(slot));
+      b.putDouble("smoothedDistance", tracker.getSmoothedDistance(slot));
+      b.putDouble("firstSeen", tracker.getFirstSeen(slot));
+      b.putDouble("lastSeen", tracker.getLastSeen(slot));
+      b.putDouble("dwellTime", tracker.getDwellTime(slot));
+    }
+    return b;
+  }
+
+  private WritableArray serializeCompact(Beacon beacon, @Nullable BeaconTracker tracker) {
+    WritableArray b = mContainers.createArray();
+    List<Identifier> identifiers = beacon.getIdentifiers();
+    b.pushString(identifierToString(identifiers.get(0)));
+    if (identifiers.size() > 2) {
+      b.pushInt(identifiers.get(1).toInt());
+      b.pushInt(identifiers.get(2).toInt());
+    } else {
+      b.pushNull();
+      b.pushNull();
+    }
+    b.pushInt(beacon.getRssi());
+    double distance = getSafeDistance(beacon);
+    b.pushDouble(distance);
+    b.pushString(getProximity(distance));
+    int slot = tracker != null ? tracker.slotOf(beacon) : -1;
+    if (slot != -1) {
+      b.pushDouble(tracker.getSmoothedRssi(slot));
+      b.pushDouble(tracker.getSmoothedDistance(slot));
+      b.pushDouble(tracker.getDwellTime(slot));
+    }
+    return b;
+  }
+
+  static double getSafeDistance(Beacon beacon) {
+    double distance = beacon.getDistance();
+    if (Double.isNaN(distance) || Double.isInfinite(distance)) {
+      return 999.0;
+    }
+    return distance;
+  }
+
+  static String getProximity(double distance) {
+    if (distance == -1.0) {
+      return "unknown";
+    } else if (distance < 1) {
+      return "immediate";
+    } else if (distance < 3) {
+      return "near";
+    } else {
+      return "far";
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.mackentoch.beaconsandroid;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.altbeacon.beacon.BeaconManager;
+import org.altbeacon.beacon.BeaconParser;
+import org.altbeacon.beacon.Region;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Snapshot of the scanning setup made from JS: monitored regions, parsers, rssi filter and
+ * scan periods, kept as one JSON string in SharedPreferences.
+ * {@link #restore(BeaconManager)} applies it again natively, so that monitoring resumes after
+ * the process was killed without waiting for the JS bundle to re-issue every call.
+ */
+class BeaconStateStore {
+  private static final String LOG_TAG = "BeaconStateStore";
+  private static final String PREFERENCES_NAME = "RNBeaconState";
+  private static final String KEY_STATE = "state";
+  static final int FOREGROUND_SCAN_PERIOD = 0;
+  static final int FOREGROUND_BETWEEN_SCAN_PERIOD = 1;
+  static final int BACKGROUND_SCAN_PERIOD = 2;
+  static final int BACKGROUND_BETWEEN_SCAN_PERIOD = 3;
+
+  private static final class RegionEntry {
+    final String identifier;
+    final String uuid;
+    final String major;
+    final String minor;
+
+    RegionEntry(String identifier, String uuid, String major, String minor) {
+      this.identifier = identifier;
+      this.uuid = uuid;
+      this.major = major;
+      this.minor = minor;
+    }
+  }
+
+  private final SharedPreferences mPreferences;
+  private List<RegionEntry> mRegions = new ArrayList<>();
+  private List<String> mParsers;
+  private int mRssiFilterType = -1;
+  private double mRssiFilterModifier;
+  private final long[] mScanPeriods = {-1, -1, -1, -1};
+
+  BeaconStateStore(Context context) {
+    this.mPreferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    load();
+  }
+
+  synchronized void setMonitoredRegions(Collection<Region> regions) {
+    List<RegionEntry> entries = new ArrayList<>(regions.size());
+    for (Region region : regions) {
+      entries.add(new RegionEntry(
+        region.getUniqueId(),
+        region.getId1() != null ? region.getId1().toString() : null,
+        region.getId2() != null ? region.getId2().toString() : "",
+        region.getId3() != null ? region.getId3().toString() : ""
+      ));
+    }
+    mRegions = entries;
+    save();
+  }
+
+  synchronized void setParsers(List<BeaconParser> parsers) {
+    List<String> layouts = new ArrayList<>(parsers.size());
+    for (BeaconParser parser : parsers) {
+      if (parser.getLayout() != null) {
+        layouts.add(parser.getLayout());
+      }
+    }
+    mParsers = layouts;
+    save();
+  }
+
+  synchronized void setRssiFilter(int filterType, double avgModifier) {
+    mRssiFilterType = filterType;
+    mRssiFilterModifier = avgModifier;
+    save();
+  }
+
+  synchronized void setScanPeriod(int which, long period) {
+    mScanPeriods[which] = period;
+    save();
+  }
+
+  synchronized void clear() {
+    mRegions = new ArrayList<>();
+    mParsers = null;
+    mRssiFilterType = -1;
+    for (int i = 0; i < mScanPeriods.length; i++) {
+      mScanPeriods[i] = -1;
+    }
+    mPreferences.edit().remove(KEY_STATE).apply();
+  }
+
+  /**
+   * Parsers, rssi filter and scan periods are applied first, then monitoring is started again
+   * for every region.
+   */
+  synchronized void restore(BeaconManager beaconManager) {
+    if (mParsers != null) {
+      new BeaconParserRegistry(beaconManager.getBeaconParsers()).replaceAll(mParsers);
+    }
+    if (mRssiFilterType != -1) {
+      BeaconsAndroidModule.applyRssiFilter(mRssiFilterType, mRssiFilterModifier);
+    }
+    if (mScanPeriods[FOREGROUND_SCAN_PERIOD] != -1) {
+      beaconManager.setForegroundScanPeriod(mScanPeriods[FOREGROUND_SCAN_PERIOD]);
+    }
+    if (mScanPeriods[FOREGROUND_BETWEEN_SCAN_PERIOD] != -1) {
+      beaconManager.setForegroundBetweenScanPeriod(mScanPeriods[FOREGROUND_BETWEEN_SCAN_PERIOD]);
+    }
+    if (mScanPeriods[BACKGROUND_SCAN_PERIOD] != -1) {
+      beaconManager.setBackgroundScanPeriod(mScanPeriods[BACKGROUND_SCAN_PERIOD]);
+    }
+    if (mScanPeriods[BACKGROUND_BETWEEN_SCAN_PERIOD] != -1) {
+      beaconManager.setBackgroundBetweenScanPeriod(mScanPeriods[BACKGROUND_BETWEEN_SCAN_PERIOD]);
+    }
+    for (RegionEntry entry : mRegions) {
+      try {
+        beaconManager.startMonitoring(BeaconsAndroidModule.createRegion(entry.identifier, entry.uuid, entry.minor, entry.major));
+      } catch (Exception e) {
+        Log.e(LOG_TAG, "restore, could not start monitoring " + entry.identifier + ": ", e);
+      }
+    }
+  }
+
+  private void load() {
+    String state = mPreferences.getString(KEY_STATE, null);
+    if (state == null) {
+      return;
+    }
+    try {
+      JSONObject json = new JSONObject(state);
+      JSONArray regions = json.getJSONArray("regions");
+      for (int i = 0; i < regions.length(); i++) {
+        JSONObject r = regions.getJSONObject(i);
+        mRegions.add(new RegionEntry(
+          r.getString("identifier"),
+          r.isNull("uuid") ? null : r.getString("uuid"),
+          r.getString("major"),
+          r.getString("minor")
+        ));
+      }
+      if (json.has("parsers")) {
+        JSONArray parsers = json.getJSONArray("parsers");
+        mParsers = new ArrayList<>(parsers.length());
+        for (int i = 0; i < parsers.length(); i++) {
+          mParsers.add(parsers.getString(i));
+        }
+      }
+      mRssiFilterType = json.optInt("rssiFilterType", -1);
+      mRssiFilterModifier = json.optDouble("rssiFilterModifier", 0);
+      JSONArray scanPeriods = json.getJSONArray("scanPeriods");
+      for (int i = 0; i < mScanPeriods.length && i < scanPeriods.length(); i++) {
+        mScanPeriods[i] = scanPeriods.getLong(i);
+      }
+    } catch (JSONException e) {
+      Log.e(LOG_TAG, "load, ignoring invalid state: ", e);
+    }
+  }
+
+  private void save() {
+    try {
+      JSONObject json = new JSONObject();
+      JSONArray regions = new JSONArray();
+      for (RegionEntry entry : mRegions) {
+        JSONObject r = new JSONObject();
+        r.put("identifier", entry.identifier);
+        r.put("uuid", entry.uuid != null ? entry.uuid : JSONObject.NULL);
+        r.put("major", entry.major);
+        r.put("minor", entry.minor);
+        regions.put(r);
+      }
+      json.put("regions", regions);
+      if (mParsers != null) {
+        json.put("parsers", new JSONArray(mParsers));
+      }
+      json.put("rssiFilterType", mRssiFilterType);
+      json.put("rssiFilterModifier", mRssiFilterModifier);
+      JSONArray scanPeriods = new JSONArray();
+      for (long period : mScanPeriods) {
+        scanPeriods.put(period);
+      }
+      json.put("scanPeriods", scanPeriods);
+      mPreferences.edit().putString(KEY_STATE, json.toString()).apply();
+    } catch (JSONException e) {
+      Log.e(LOG_TAG, "save, error: ", e);
+    }
+  }
+}
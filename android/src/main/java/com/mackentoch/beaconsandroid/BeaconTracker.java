@@ -0,0 +1,136 @@
+package com.mackentoch.beaconsandroid;
+
+import org.altbeacon.beacon.Beacon;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Tracks the beacons of one ranged region across scan cycles.
+ * Each beacon gets a slot in primitive arrays holding its exponentially weighted moving
+ * average (EWMA) of rssi and distance plus first-seen / last-seen timestamps.
+ * Beacons not seen for longer than the expiration are dropped and their slot reused.
+ */
+class BeaconTracker {
+  static final double DEFAULT_SMOOTHING_FACTOR = 0.3;
+  static final long DEFAULT_EXPIRATION = 10000;
+  private static final int INITIAL_CAPACITY = 16;
+
+  static final class Config {
+    final boolean enabled;
+    final double smoothingFactor;
+    final long expiration;
+
+    Config(boolean enabled, double smoothingFactor, long expiration) {
+      this.enabled = enabled;
+      this.smoothingFactor = smoothingFactor;
+      this.expiration = expiration;
+    }
+  }
+
+  private final Map<Beacon, Integer> mSlots = new HashMap<>();
+  private final double mSmoothingFactor;
+  private final long mExpiration;
+  private double[] mRssi = new double[INITIAL_CAPACITY];
+  private double[] mDistance = new double[INITIAL_CAPACITY];
+  private long[] mFirstSeen = new long[INITIAL_CAPACITY];
+  private long[] mLastSeen = new long[INITIAL_CAPACITY];
+  private int[] mFreeSlots = new int[INITIAL_CAPACITY];
+  private int mFreeCount = 0;
+  private int mSlotCount = 0;
+
+  BeaconTracker(Config config) {
+    this.mSmoothingFactor = config.smoothingFactor > 0 && config.smoothingFactor <= 1 ? config.smoothingFactor : DEFAULT_SMOOTHING_FACTOR;
+    this.mExpiration = config.expiration > 0 ? config.expiration : DEFAULT_EXPIRATION;
+  }
+
+  synchronized void update(Collection<Beacon> beacons, long now) {
+    for (Beacon beacon : beacons) {
+      double distance = BeaconSerializer.getSafeDistance(beacon);
+      Integer slot = mSlots.get(beacon);
+      if (slot == null) {
+        int s = allocateSlot();
+        mSlots.put(beacon, s);
+        mRssi[s] = beacon.getRssi();
+        mDistance[s] = distance;
+        mFirstSeen[s] = now;
+        mLastSeen[s] = now;
+        continue;
+      }
+      int s = slot;
+      mRssi[s] += mSmoothingFactor * (beacon.getRssi() - mRssi[s]);
+      if (distance != 999.0) {
+        mDistance[s] = mDistance[s] == 999.0 ? distance : mDistance[s] + mSmoothingFactor * (distance - mDistance[s]);
+      }
+      mLastSeen[s] = now;
+    }
+    Iterator<Integer> iterator = mSlots.values().iterator();
+    while (iterator.hasNext()) {
+      int s = iterator.next();
+      if (now - mLastSeen[s] > mExpiration) {
+        releaseSlot(s);
+        iterator.remove();
+      }
+    }
+  }
+
+  synchronized int slotOf(Beacon beacon) {
+    Integer slot = mSlots.get(beacon);
+    return slot == null ? -1 : slot;
+  }
+
+  /**
+   * Reads the smoothed rssi (or distance) of all the beacons under one lock, so that they all
+   * come from the same update; NaN for the beacons that are not tracked.
+   */
+  synchronized void getSmoothedValues(Beacon[] beacons, boolean rssi, double[] values) {
+    for (int i = 0; i < beacons.length; i++) {
+      Integer slot = mSlots.get(beacons[i]);
+      values[i] = slot == null ? Double.NaN : (rssi ? mRssi[slot] : mDistance[slot]);
+    }
+  }
+
+  synchronized double getSmoothedRssi(int slot) {
+    return mRssi[slot];
+  }
+
+  synchronized double getSmoothedDistance(int slot) {
+    return mDistance[slot];
+  }
+
+  synchronized long getFirstSeen(int slot) {
+    return mFirstSeen[slot];
+  }
+
+  synchronized long getLastSeen(int slot) {
+    return mLastSeen[slot];
+  }
+
+  synchronized long getDwellTime(int slot) {
+    return mLastSeen[slot] - mFirstSeen[slot];
+  }
+
+  private int allocateSlot() {
+    if (mFreeCount > 0) {
+      return mFreeSlots[--mFreeCount];
+    }
+    if (mSlotCount == mRssi.length) {
+      int capacity = mSlotCount * 2;
+      mRssi = Arrays.copyOf(mRssi, capacity);
+      mDistance = Arrays.copyOf(mDistance, capacity);
+      mFirstSeen = Arrays.copyOf(mFirstSeen, capacity);
+      mLastSeen = Arrays.copyOf(mLastSeen, capacity);
+    }
+    return mSlotCount++;
+  }
+
+  private void releaseSlot(int slot) {
+    if (mFreeCount == mFreeSlots.length) {
+      mFreeSlots = Arrays.copyOf(mFreeSlots, mFreeCount * 2);
+    }
+    mFreeSlots[mFreeCount++] = slot;
+  }
+}
@@ -7,6 +7,7 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
+import android.os.RemoteException;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -19,6 +20,7 @@ import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeArray;
@@ -37,8 +39,12 @@ import org.altbeacon.beacon.service.ArmaRssiFilter;
 import org.altbeacon.beacon.service.RunningAverageRssiFilter;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
@@ -47,10 +53,45 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
   private static final int ARMA_RSSI_FILTER = 1;
   private BeaconManager mBeaconManager;
   private final ReactApplicationContext mReactContext;
+  private volatile boolean mRangingBatchEnabled = false;
+  private volatile boolean mRangingDeltaEnabled = false;
+  private final RangingDeltaTracker mRangingDeltaTracker = new RangingDeltaTracker();
+  private final BeaconSerializer mBeaconSerializer = new BeaconSerializer();
+  private final Map<String, BeaconTracker> mBeaconTrackers = new HashMap<>();
+  private final Map<String, BeaconTracker.Config> mRegionTrackingConfigs = new HashMap<>();
+  private final Map<String, BeaconRanker> mBeaconRankers = new HashMap<>();
+  private final RegionIndex mRegionIndex = new RegionIndex();
+  private final RangingSnapshot mRangingSnapshot = new RangingSnapshot();
+  private final BeaconFilter mBeaconFilter = new BeaconFilter();
+  private volatile boolean mZonesOnly = false;
+  private volatile boolean mPositionOnly = false;
+  private final RangingRingBuffer mRangingBuffer = new RangingRingBuffer();
+  private volatile boolean mRangingBufferOnly = false;
+  private volatile boolean mSubscriptionsOnly = false;
+  private final EventPipeline mEventPipeline = new EventPipeline(EventPipeline.DEFAULT_CAPACITY, EventPipeline.DEFAULT_TASK_CAPACITY);
+  private SightingRecorder mSightingRecorder;
+  private BeaconParserRegistry mParserRegistry;
+  private BeaconStateStore mStateStore;
+  // between scan periods set by the app, restored when adaptive scanning is disabled
+  private volatile long mForegroundBetweenScanPeriod;
+  private volatile long mBackgroundBetweenScanPeriod;
+  private TelemetryUploader mTelemetryUploader;
+  private volatile boolean mSightingRecorderEnabled = false;
+  @Nullable
+  private volatile ScanSimulator mScanSimulator;
+  // region fed by the simulation, its cycles skip the recorder, telemetry and adaptive scanning
+  @Nullable
+  private volatile String mSimulatedRegionId;
+  // replaces the JS emitter while a simulation runs
+  @Nullable
+  private volatile EventSink mEventSink;
+  private BeaconTracker.Config mTrackingConfig = new BeaconTracker.Config(false, BeaconTracker.DEFAULT_SMOOTHING_FACTOR, BeaconTracker.DEFAULT_EXPIRATION);
 
   public BeaconsAndroidModule(ReactApplicationContext reactContext) {
     super(reactContext);
-    Log.d(LOG_TAG, "BeaconsAndroidModule - started");
+    if (BeaconsLog.isDebugEnabled()) {
+      Log.d(LOG_TAG, "BeaconsAndroidModule - started");
+    }
     this.mReactContext = reactContext;
   }
 
@@ -58,12 +99,44 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
   public void initialize() {
     Context mApplicationContext = this.mReactContext.getApplicationContext();
     this.mBeaconManager = BeaconManager.getInstanceForApplication(mApplicationContext);
-    mBeaconManager.getBeaconParsers().add(new BeaconParser().setBeaconLayout("m:0-3=4c000215,i:4-19,i:20-21,i:22-23,p:24-24"));
+    this.mSightingRecorder = new SightingRecorder(new File(mApplicationContext.getFilesDir(), "beacon-sightings"));
+    this.mParserRegistry = new BeaconParserRegistry(mBeaconManager.getBeaconParsers());
+    this.mStateStore = new BeaconStateStore(mApplicationContext);
+    // set from JS or restored by RNBeacon before adaptive scanning may change them
+    this.mForegroundBetweenScanPeriod = mBeaconManager.getForegroundBetweenScanPeriod();
+    this.mBackgroundBetweenScanPeriod = mBeaconManager.getBackgroundBetweenScanPeriod();
+    this.mTelemetryUploader = TelemetryUploader.getInstance(mApplicationContext);
+    mParserRegistry.add(BeaconParserRegistry.IBEACON_LAYOUT);
+    // regions restored natively by RNBeacon are known from the start and stay persisted
+    for (Region region : mBeaconManager.getMonitoredRegions()) {
+      mRegionIndex.putMonitored(region);
+    }
     mBeaconManager.addMonitorNotifier(mMonitorNotifier);
     mBeaconManager.addRangeNotifier(mRangeNotifier);
     sendEvent(mReactContext, "beaconServiceConnected", null);
   }
 
+  @Override
+  public void invalidate() {
+    if (mBeaconManager != null) {
+      mBeaconManager.removeMonitorNotifier(mMonitorNotifier);
+      mBeaconManager.removeRangeNotifier(mRangeNotifier);
+    }
+    mRegionDebouncer.clear();
+    mRangingBatchDispatcher.clear();
+    mRangingSubscriptions.clear();
+    mAdaptiveScanScheduler.shutdown();
+    stopSimulation();
+    if (mTelemetryUploader != null) {
+      mTelemetryUploader.flush();
+    }
+    mEventPipeline.shutdown();
+    if (mSightingRecorder != null) {
+      mSightingRecorder.close();
+    }
+    super.invalidate();
+  }
+
   @NonNull
   @Override
   public String getName() {
@@ -80,9 +153,25 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
     constants.put("NOT_SUPPORTED_CANNOT_GET_ADVERTISER", BeaconTransmitter.NOT_SUPPORTED_CANNOT_GET_ADVERTISER);
     constants.put("RUNNING_AVG_RSSI_FILTER", RUNNING_AVG_RSSI_FILTER);
     constants.put("ARMA_RSSI_FILTER", ARMA_RSSI_FILTER);
+    constants.put("PAYLOAD_FORMAT_MAP", BeaconSerializer.PAYLOAD_FORMAT_MAP);
+    constants.put("PAYLOAD_FORMAT_COMPACT", BeaconSerializer.PAYLOAD_FORMAT_COMPACT);
+    constants.put("LOG_LEVEL_DEBUG", BeaconsLog.LOG_LEVEL_DEBUG);
+    constants.put("LOG_LEVEL_INFO", BeaconsLog.LOG_LEVEL_INFO);
+    constants.put("LOG_LEVEL_WARN", BeaconsLog.LOG_LEVEL_WARN);
+    constants.put("LOG_LEVEL_ERROR", BeaconsLog.LOG_LEVEL_ERROR);
     return constants;
   }
 
+  @ReactMethod
+  public void setLogLevel(int level) {
+    BeaconsLog.setLevel(level);
+  }
+
+  @ReactMethod
+  public void setTraceEnabled(boolean enabled) {
+    BeaconsLog.setTraceEnabled(enabled);
+  }
+
   @ReactMethod
   public void setHardwareEqualityEnforced(Boolean e) {
     Beacon.setHardwareEqualityEnforced(e);
@@ -91,8 +180,11 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
   @ReactMethod
   public void addParser(String parser, Callback resolve, Callback reject) {
     try {
-      Log.d(LOG_TAG, "BeaconsAndroidModule - addParser: " + parser);
-      mBeaconManager.getBeaconParsers().add(new BeaconParser().setBeaconLayout(parser));
+      if (BeaconsLog.isDebugEnabled()) {
+        Log.d(LOG_TAG, "BeaconsAndroidModule - addParser: " + parser);
+      }
+      mParserRegistry.add(parser);
+      mStateStore.setParsers(mParserRegistry.getParsers());
       resolve.invoke();
     } catch (Exception e) {
       reject.invoke(e.getMessage());
@@ -102,8 +194,11 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
   @ReactMethod
   public void removeParser(String parser, Callback resolve, Callback reject) {
     try {
-      Log.d(LOG_TAG, "BeaconsAndroidModule - removeParser: " + parser);
-      mBeaconManager.getBeaconParsers().remove(new BeaconParser().setBeaconLayout(parser));
+      if (BeaconsLog.isDebugEnabled()) {
+        Log.d(LOG_TAG, "BeaconsAndroidModule - removeParser: " + parser);
+      }
+      mParserRegistry.remove(parser);
+      mStateStore.setParsers(mParserRegistry.getParsers());
       resolve.invoke();
     } catch (Exception e) {
       reject.invoke(e.getMessage());
@@ -115,9 +210,12 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
     try {
       for (int i = 0; i < parsers.size(); i++) {
         String parser = parsers.getString(i);
-        Log.d(LOG_TAG, "addParsersListToDetection - add parser: " + parser);
-        mBeaconManager.getBeaconParsers().add(new BeaconParser().setBeaconLayout(parser));
+        if (BeaconsLog.isDebugEnabled()) {
+          Log.d(LOG_TAG, "addParsersListToDetection - add parser: " + parser);
+        }
+        mParserRegistry.add(parser);
       }
+      mStateStore.setParsers(mParserRegistry.getParsers());
       resolve.invoke(parsers);
     } catch (Exception e) {
       reject.invoke(e.getMessage());
@@ -129,33 +227,130 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
     try {
       for (int i = 0; i < parsers.size(); i++) {
         String parser = parsers.getString(i);
-        Log.d(LOG_TAG, "removeParsersListToDetection - remove parser: " + parser);
-        mBeaconManager.getBeaconParsers().remove(new BeaconParser().setBeaconLayout(parser));
+        if (BeaconsLog.isDebugEnabled()) {
+          Log.d(LOG_TAG, "removeParsersListToDetection - remove parser: " + parser);
+        }
+        mParserRegistry.remove(parser);
       }
+      mStateStore.setParsers(mParserRegistry.getParsers());
       resolve.invoke(parsers);
     } catch (Exception e) {
       reject.invoke(e.getMessage());
     }
   }
 
+  /**
+   * Replaces all the detection parsers at once. Nothing changes when a layout is invalid.
+   */
+  @ReactMethod
+  public void setParsers(ReadableArray parsers, Callback resolve, Callback reject) {
+    try {
+      List<String> layouts = new ArrayList<>(parsers.size());
+      for (int i = 0; i < parsers.size(); i++) {
+        layouts.add(parsers.getString(i));
+      }
+      mParserRegistry.replaceAll(layouts);
+      mStateStore.setParsers(mParserRegistry.getParsers());
+      resolve.invoke(parsers);
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "setParsers, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  /**
+   * Beacons matched by each detection parser, counted on ranged beacons.
+   */
+  @ReactMethod
+  public void getParserStats(Callback callback) {
+    WritableArray array = new WritableNativeArray();
+    for (BeaconParser parser : mParserRegistry.getParsers()) {
+      WritableMap map = new WritableNativeMap();
+      map.putString("layout", parser.getLayout());
+      map.putDouble("matches", mParserRegistry.getMatchCount(parser.getIdentifier()));
+      array.pushMap(map);
+    }
+    callback.invoke(array);
+  }
+
   @ReactMethod
   public void setBackgroundScanPeriod(int period) {
     mBeaconManager.setBackgroundScanPeriod((long) period);
+    mStateStore.setScanPeriod(BeaconStateStore.BACKGROUND_SCAN_PERIOD, period);
   }
 
   @ReactMethod
   public void setBackgroundBetweenScanPeriod(int period) {
-    mBeaconManager.setBackgroundBetweenScanPeriod((long) period);
+    mBackgroundBetweenScanPeriod = period;
+    if (!mAdaptiveScanScheduler.isEnabled()) {
+      mBeaconManager.setBackgroundBetweenScanPeriod((long) period);
+    }
+    mStateStore.setScanPeriod(BeaconStateStore.BACKGROUND_BETWEEN_SCAN_PERIOD, period);
+  }
+
+  /**
+   * See {@link HeadlessJsTaskWorker#setKeepWarmTimeout}.
+   */
+  @ReactMethod
+  public void setHeadlessKeepWarmTimeout(double timeout) {
+    HeadlessJsTaskWorker.setKeepWarmTimeout((long) timeout);
   }
 
   @ReactMethod
   public void setForegroundScanPeriod(int period) {
     mBeaconManager.setForegroundScanPeriod((long) period);
+    mStateStore.setScanPeriod(BeaconStateStore.FOREGROUND_SCAN_PERIOD, period);
   }
 
   @ReactMethod
   public void setForegroundBetweenScanPeriod(int period) {
-    mBeaconManager.setForegroundBetweenScanPeriod((long) period);
+    mForegroundBetweenScanPeriod = period;
+    if (!mAdaptiveScanScheduler.isEnabled()) {
+      mBeaconManager.setForegroundBetweenScanPeriod((long) period);
+    }
+    mStateStore.setScanPeriod(BeaconStateStore.FOREGROUND_BETWEEN_SCAN_PERIOD, period);
+  }
+
+  /**
+   * Between scan periods are then driven by AdaptiveScanScheduler and override the values set
+   * with setForegroundBetweenScanPeriod / setBackgroundBetweenScanPeriod until it is disabled,
+   * which restores them.
+   */
+  @ReactMethod
+  public void setAdaptiveScanConfig(ReadableMap config) {
+    mAdaptiveScanScheduler.setConfig(new AdaptiveScanScheduler.Config(
+      config.hasKey("enabled") && config.getBoolean("enabled"),
+      config.hasKey("foregroundMinBetweenScanPeriod") ? (long) config.getDouble("foregroundMinBetweenScanPeriod") : mForegroundBetweenScanPeriod,
+      config.hasKey("foregroundMaxBetweenScanPeriod") ? (long) config.getDouble("foregroundMaxBetweenScanPeriod") : mForegroundBetweenScanPeriod,
+      config.hasKey("backgroundMinBetweenScanPeriod") ? (long) config.getDouble("backgroundMinBetweenScanPeriod") : mBackgroundBetweenScanPeriod,
+      config.hasKey("backgroundMaxBetweenScanPeriod") ? (long) config.getDouble("backgroundMaxBetweenScanPeriod") : mBackgroundBetweenScanPeriod,
+      config.hasKey("stableInterval") ? (long) config.getDouble("stableInterval") : AdaptiveScanScheduler.DEFAULT_STABLE_INTERVAL
+    ));
+  }
+
+  private final AdaptiveScanScheduler mAdaptiveScanScheduler = new AdaptiveScanScheduler(new AdaptiveScanScheduler.PeriodsListener() {
+    @Override
+    public void onPeriodsChanged(long foregroundBetweenScanPeriod, long backgroundBetweenScanPeriod) {
+      if (BeaconsLog.isDebugEnabled()) {
+        Log.d(LOG_TAG, "adaptive scan, foregroundBetweenScanPeriod: " + foregroundBetweenScanPeriod + ", backgroundBetweenScanPeriod: " + backgroundBetweenScanPeriod);
+      }
+      applyBetweenScanPeriods(foregroundBetweenScanPeriod, backgroundBetweenScanPeriod);
+    }
+
+    @Override
+    public void onDisabled() {
+      applyBetweenScanPeriods(mForegroundBetweenScanPeriod, mBackgroundBetweenScanPeriod);
+    }
+  });
+
+  private void applyBetweenScanPeriods(long foregroundBetweenScanPeriod, long backgroundBetweenScanPeriod) {
+    mBeaconManager.setForegroundBetweenScanPeriod(foregroundBetweenScanPeriod);
+    mBeaconManager.setBackgroundBetweenScanPeriod(backgroundBetweenScanPeriod);
+    try {
+      mBeaconManager.updateScanPeriods();
+    } catch (RemoteException e) {
+      Log.e(LOG_TAG, "updateScanPeriods, error: ", e);
+    }
   }
 
   @ReactMethod
@@ -210,6 +405,11 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void setRssiFilter(int filterType, double avgModifier) {
+    applyRssiFilter(filterType, avgModifier);
+    mStateStore.setRssiFilter(filterType, avgModifier);
+  }
+
+  static void applyRssiFilter(int filterType, double avgModifier) {
     String logMsg = "Could not set the rssi filter.";
     if (filterType == RUNNING_AVG_RSSI_FILTER) {
       logMsg = "Setting filter RUNNING_AVG";
@@ -226,7 +426,9 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
         logMsg += " with custom avg modifier";
       }
     }
-    Log.d(LOG_TAG, logMsg);
+    if (BeaconsLog.isDebugEnabled()) {
+      Log.d(LOG_TAG, logMsg);
+    }
   }
 
   @ReactMethod
@@ -239,12 +441,7 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
   public void getMonitoredRegions(Callback callback) {
     WritableArray array = new WritableNativeArray();
     for (Region region : mBeaconManager.getMonitoredRegions()) {
-      WritableMap map = new WritableNativeMap();
-      map.putString("identifier", region.getUniqueId());
-      map.putString("uuid", region.getId1().toString());
-      map.putInt("major", region.getId2() != null ? region.getId2().toInt() : 0);
-      map.putInt("minor", region.getId3() != null ? region.getId3().toInt() : 0);
-      array.pushMap(map);
+      array.pushMap(mBeaconSerializer.serializeMonitoring(region));
     }
     callback.invoke(array);
   }
@@ -253,10 +450,7 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
   public void getRangedRegions(Callback callback) {
     WritableArray array = new WritableNativeArray();
     for (Region region : mBeaconManager.getRangedRegions()) {
-      WritableMap map = new WritableNativeMap();
-      map.putString("identifier", region.getUniqueId());
-      map.putString("uuid", region.getId1().toString());
-      array.pushMap(map);
+      array.pushMap(mBeaconSerializer.serializeRegion(region));
     }
     callback.invoke(array);
   }
@@ -269,6 +463,19 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
     for (Region region : mBeaconManager.getMonitoredRegions()) {
       mBeaconManager.stopMonitoring(region);
     }
+    mRegionIndex.clear();
+    mRangingSnapshot.clear();
+    mStateStore.setMonitoredRegions(mRegionIndex.getMonitored());
+    mAdaptiveScanScheduler.clear();
+    mRegionDebouncer.clear();
+    mRangingBatchDispatcher.clear();
+    mRangingDeltaTracker.clear();
+    synchronized (mBeaconTrackers) {
+      mBeaconTrackers.clear();
+    }
+    synchronized (mBeaconRankers) {
+      mBeaconRankers.clear();
+    }
 
     resolve.invoke();
   }
@@ -278,15 +485,14 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
    **********************************************************************************************/
   @ReactMethod
   public void startMonitoring(String regionId, String beaconUuid, int minor, int major, Callback resolve, Callback reject) {
-    Log.d(LOG_TAG, "startMonitoring, monitoringRegionId: " + regionId + ", monitoringBeaconUuid: " + beaconUuid + ", minor: " + minor + ", major: " + major);
+    if (BeaconsLog.isDebugEnabled()) {
+      Log.d(LOG_TAG, "startMonitoring, monitoringRegionId: " + regionId + ", monitoringBeaconUuid: " + beaconUuid + ", minor: " + minor + ", major: " + major);
+    }
     try {
-      Region region = createRegion(
-        regionId,
-        beaconUuid,
-        String.valueOf(minor).equals("-1") ? "" : String.valueOf(minor),
-        String.valueOf(major).equals("-1") ? "" : String.valueOf(major)
-      );
+      Region region = obtainRegion(regionId, beaconUuid, minor, major);
       mBeaconManager.startMonitoring(region);
+      mRegionIndex.putMonitored(region);
+      mStateStore.setMonitoredRegions(mRegionIndex.getMonitored());
       resolve.invoke();
     } catch (Exception e) {
       Log.e(LOG_TAG, "startMonitoring, error: ", e);
@@ -296,56 +502,89 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
 
   private final MonitorNotifier mMonitorNotifier = new MonitorNotifier() {
     @Override
-    public void didEnterRegion(Region region) {
-      sendEvent(mReactContext, "regionDidEnter", createMonitoringResponse(region));
+    public void didEnterRegion(final Region region) {
+      if (!isSimulated(region)) {
+        mAdaptiveScanScheduler.onRegionTransition();
+      }
+      if (mRegionDebouncer.isEnabled()) {
+        mRegionDebouncer.onEnter(region);
+      } else {
+        emitTransition(region, true);
+      }
     }
 
     @Override
-    public void didExitRegion(Region region) {
-      sendEvent(mReactContext, "regionDidExit", createMonitoringResponse(region));
+    public void didExitRegion(final Region region) {
+      if (!isSimulated(region)) {
+        mAdaptiveScanScheduler.onRegionTransition();
+      }
+      if (mRegionDebouncer.isEnabled()) {
+        mRegionDebouncer.onExit(region);
+      } else {
+        emitTransition(region, false);
+      }
     }
 
     @Override
-    public void didDetermineStateForRegion(int i, Region region) {
-      String state = "unknown";
-      switch (i) {
-        case MonitorNotifier.INSIDE:
-          state = "inside";
-          break;
-        case MonitorNotifier.OUTSIDE:
-          state = "outside";
-          break;
-        default:
-          break;
-      }
-      WritableMap map = createMonitoringResponse(region);
-      map.putString("state", state);
-      sendEvent(mReactContext, "didDetermineState", map);
+    public void didDetermineStateForRegion(final int i, final Region region) {
+      mEventPipeline.execute(() -> onDeterminedState(i, region));
     }
   };
 
-  private WritableMap createMonitoringResponse(Region region) {
-    WritableMap map = new WritableNativeMap();
-    map.putString("identifier", region.getUniqueId());
-    map.putString("uuid", region.getId1() != null ? region.getId1().toString() : "");
-    map.putInt("major", region.getId2() != null ? region.getId2().toInt() : 0);
-    map.putInt("minor", region.getId3() != null ? region.getId3().toInt() : 0);
-    return map;
+  private final RegionDebouncer mRegionDebouncer = new RegionDebouncer(new RegionDebouncer.TransitionListener() {
+    @Override
+    public void onTransition(Region region, boolean inside) {
+      emitTransition(region, inside);
+    }
+  });
+
+  private void emitTransition(final Region region, boolean inside) {
+    if (mTelemetryUploader.isEnabled() && !isSimulated(region)) {
+      mTelemetryUploader.recordTransition(region, inside ? "enter" : "exit", System.currentTimeMillis());
+    }
+    final String eventName = inside ? "regionDidEnter" : "regionDidExit";
+    if (!mEventPipeline.execute(() -> sendEvent(mReactContext, eventName, mBeaconSerializer.serializeMonitoring(region)))) {
+      Log.w(LOG_TAG, "event pipeline full, " + eventName + " dropped for region: " + region.getUniqueId());
+    }
+  }
+
+  @ReactMethod
+  public void setRegionDebounceConfig(ReadableMap config) {
+    mRegionDebouncer.setConfig(new RegionDebouncer.Config(
+      config.hasKey("enabled") && config.getBoolean("enabled"),
+      config.hasKey("enterDelay") ? (long) config.getDouble("enterDelay") : 0,
+      config.hasKey("exitDelay") ? (long) config.getDouble("exitDelay") : 0,
+      config.hasKey("enterRssi") ? config.getInt("enterRssi") : RegionDebouncer.RSSI_NONE,
+      config.hasKey("exitRssi") ? config.getInt("exitRssi") : RegionDebouncer.RSSI_NONE
+    ));
+  }
+
+  private void onDeterminedState(int i, Region region) {
+    String state = "unknown";
+    switch (i) {
+      case MonitorNotifier.INSIDE:
+        state = "inside";
+        break;
+      case MonitorNotifier.OUTSIDE:
+        state = "outside";
+        break;
+      default:
+        break;
+    }
+    WritableMap map = mBeaconSerializer.serializeMonitoring(region);
+    map.putString("state", state);
+    sendEvent(mReactContext, "didDetermineState", map);
   }
 
   @ReactMethod
   public void stopMonitoring(String regionId, String beaconUuid, int minor, int major, Callback resolve, Callback reject) {
-    Region region = createRegion(
-      regionId,
-      beaconUuid,
-      String.valueOf(minor).equals("-1") ? "" : String.valueOf(minor),
-      String.valueOf(major).equals("-1") ? "" : String.valueOf(major)
-      // minor,
-      // major
-    );
+    Region region = lookUpRegion(regionId, beaconUuid, minor, major);
 
     try {
       mBeaconManager.stopMonitoring(region);
+      mRegionIndex.removeMonitored(regionId);
+      mStateStore.setMonitoredRegions(mRegionIndex.getMonitored());
+      mRegionDebouncer.remove(regionId);
       resolve.invoke();
     } catch (Exception e) {
       Log.e(LOG_TAG, "stopMonitoring, error: ", e);
@@ -358,15 +597,13 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
    **********************************************************************************************/
   @ReactMethod
   public void startRanging(String regionId, String beaconUuid, int minor, int major, Callback resolve, Callback reject) {
-    Log.d(LOG_TAG, "startRanging, rangingRegionId: " + regionId + ", rangingBeaconUuid: " + beaconUuid);
+    if (BeaconsLog.isDebugEnabled()) {
+      Log.d(LOG_TAG, "startRanging, rangingRegionId: " + regionId + ", rangingBeaconUuid: " + beaconUuid);
+    }
     try {
-      Region region = createRegion(
-        regionId,
-        beaconUuid,
-        String.valueOf(minor).equals("-1") ? "" : String.valueOf(minor),
-        String.valueOf(major).equals("-1") ? "" : String.valueOf(major)
-      );
+      Region region = obtainRegion(regionId, beaconUuid, minor, major);
       mBeaconManager.startRangingBeacons(region);
+      mRegionIndex.putRanged(region);
       resolve.invoke();
     } catch (Exception e) {
       Log.e(LOG_TAG, "startRanging, error: ", e);
@@ -374,68 +611,554 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
     }
   }
 
+  @ReactMethod
+  public void startRangingWithOptions(String regionId, String beaconUuid, int minor, int major, ReadableMap options, Callback resolve, Callback reject) {
+    if (BeaconsLog.isDebugEnabled()) {
+      Log.d(LOG_TAG, "startRangingWithOptions, rangingRegionId: " + regionId + ", rangingBeaconUuid: " + beaconUuid);
+    }
+    try {
+      Region region = obtainRegion(regionId, beaconUuid, minor, major);
+      BeaconRanker ranker = new BeaconRanker(
+        options.hasKey("topK") ? options.getInt("topK") : 0,
+        options.hasKey("sortBy") && "rssi".equals(options.getString("sortBy")) ? BeaconRanker.SORT_BY_RSSI : BeaconRanker.SORT_BY_DISTANCE
+      );
+      synchronized (mBeaconRankers) {
+        mBeaconRankers.put(regionId, ranker);
+      }
+      mBeaconManager.startRangingBeacons(region);
+      mRegionIndex.putRanged(region);
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "startRangingWithOptions, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void getStats(Callback callback) {
+    WritableMap map = BeaconsMetrics.snapshot();
+    map.putInt("pipelineQueueDepth", mEventPipeline.getQueueDepth());
+    map.putDouble("pipelineDropped", mEventPipeline.getDroppedCount());
+    map.putDouble("pipelineDroppedTasks", mEventPipeline.getDroppedTaskCount());
+    callback.invoke(map);
+  }
+
+  @ReactMethod
+  public void resetStats() {
+    BeaconsMetrics.reset();
+    mParserRegistry.resetMatchCounts();
+  }
+
+  @ReactMethod
+  public void getEventPipelineStats(Callback callback) {
+    WritableMap map = new WritableNativeMap();
+    map.putInt("queueDepth", mEventPipeline.getQueueDepth());
+    map.putInt("capacity", mEventPipeline.getCapacity());
+    map.putInt("taskCapacity", mEventPipeline.getTaskCapacity());
+    map.putDouble("dropped", mEventPipeline.getDroppedCount());
+    map.putDouble("droppedTasks", mEventPipeline.getDroppedTaskCount());
+    map.putDouble("processed", mEventPipeline.getProcessedCount());
+    callback.invoke(map);
+  }
+
+  @ReactMethod
+  public void setRangingBatchConfig(ReadableMap config) {
+    mRangingBatchEnabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    mRangingBatchDispatcher.setMaxEmitRate(config.hasKey("maxEmitRate") ? config.getDouble("maxEmitRate") : 0);
+    if (!mRangingBatchEnabled) {
+      mRangingBatchDispatcher.clear();
+    }
+  }
+
+  @ReactMethod
+  public void setRangingDeltaConfig(ReadableMap config) {
+    mRangingDeltaEnabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    mRangingDeltaTracker.setThresholds(
+      config.hasKey("rssiThreshold") ? config.getInt("rssiThreshold") : RangingDeltaTracker.DEFAULT_RSSI_THRESHOLD,
+      config.hasKey("distanceThreshold") ? config.getDouble("distanceThreshold") : RangingDeltaTracker.DEFAULT_DISTANCE_THRESHOLD
+    );
+    mRangingDeltaTracker.clear();
+  }
+
+  /**
+   * Ranged beacons are also written to a fixed-width native ring buffer that JS reads
+   * synchronously; with bufferOnly no ranging event is sent anymore.
+   */
+  @ReactMethod
+  public void setRangingBufferConfig(ReadableMap config) {
+    boolean enabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    mRangingBuffer.setConfig(enabled, config.hasKey("capacity") ? config.getInt("capacity") : RangingRingBuffer.DEFAULT_CAPACITY);
+    mRangingBufferOnly = enabled && config.hasKey("bufferOnly") && config.getBoolean("bufferOnly");
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap readRangingBuffer(double cursor, int maxRecords) {
+    RangingRingBuffer.Chunk chunk = mRangingBuffer.read((long) cursor, maxRecords);
+    WritableMap map = new WritableNativeMap();
+    map.putString("data", chunk.data);
+    map.putDouble("cursor", chunk.cursor);
+    map.putDouble("dropped", chunk.dropped);
+    map.putInt("tablesVersion", chunk.tablesVersion);
+    return map;
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getRangingBufferTables() {
+    WritableMap map = new WritableNativeMap();
+    WritableArray regions = new WritableNativeArray();
+    for (String regionId : mRangingBuffer.getRegions()) {
+      regions.pushString(regionId);
+    }
+    WritableArray uuids = new WritableNativeArray();
+    for (String id1 : mRangingBuffer.getId1s()) {
+      uuids.pushString(id1);
+    }
+    map.putArray("regions", regions);
+    map.putArray("uuids", uuids);
+    return map;
+  }
+
+  @ReactMethod
+  public void setRangingPayloadFormat(int format) {
+    mBeaconSerializer.setPayloadFormat(format);
+  }
+
+  @ReactMethod
+  public void setBeaconTrackingConfig(ReadableMap config) {
+    BeaconTracker.Config trackingConfig = new BeaconTracker.Config(
+      config.hasKey("enabled") && config.getBoolean("enabled"),
+      config.hasKey("smoothingFactor") ? config.getDouble("smoothingFactor") : BeaconTracker.DEFAULT_SMOOTHING_FACTOR,
+      config.hasKey("expiration") ? (long) config.getDouble("expiration") : BeaconTracker.DEFAULT_EXPIRATION
+    );
+    synchronized (mBeaconTrackers) {
+      if (config.hasKey("identifier")) {
+        String regionId = config.getString("identifier");
+        mRegionTrackingConfigs.put(regionId, trackingConfig);
+        mBeaconTrackers.remove(regionId);
+      } else {
+        mTrackingConfig = trackingConfig;
+        mBeaconTrackers.clear();
+      }
+    }
+  }
+
+  @Nullable
+  private BeaconTracker getBeaconTracker(String regionId) {
+    synchronized (mBeaconTrackers) {
+      BeaconTracker tracker = mBeaconTrackers.get(regionId);
+      if (tracker == null) {
+        BeaconTracker.Config config = mRegionTrackingConfigs.get(regionId);
+        if (config == null) {
+          config = mTrackingConfig;
+        }
+        if (config.enabled) {
+          tracker = new BeaconTracker(config);
+          mBeaconTrackers.put(regionId, tracker);
+        }
+      }
+      return tracker;
+    }
+  }
+
   private final RangeNotifier mRangeNotifier = new RangeNotifier() {
     @Override
-    public void didRangeBeaconsInRegion(Collection<Beacon> beacons, Region region) {
-      Log.d(LOG_TAG, "rangingConsumer didRangeBeaconsInRegion, beacons: " + beacons.toString());
-      Log.d(LOG_TAG, "rangingConsumer didRangeBeaconsInRegion, region: " + region.toString());
-      sendEvent(mReactContext, "beaconsDidRange", createRangingResponse(beacons, region));
+    public void didRangeBeaconsInRegion(Collection<Beacon> beacons, final Region region) {
+      final Collection<Beacon> rangedBeacons = filterBeacons(beacons);
+      if (!isSimulated(region)) {
+        mRangingSnapshot.update(region, rangedBeacons, System.currentTimeMillis());
+      }
+      mEventPipeline.executeFrame(region.getUniqueId(), () -> onRangedBeacons(rangedBeacons, region));
     }
   };
 
-  private WritableMap createRangingResponse(Collection<Beacon> beacons, Region region) {
+  /**
+   * AltBeacon hands a new collection to every cycle, it is passed on as is when no filter is set.
+   */
+  private Collection<Beacon> filterBeacons(Collection<Beacon> beacons) {
+    Collection<Beacon> filtered = mBeaconFilter.filter(beacons);
+    if (filtered != beacons) {
+      BeaconsMetrics.recordFiltered(beacons.size() - filtered.size());
+    }
+    return filtered;
+  }
+
+  /**
+   * Drops ranged beacons below minRssi or not matching any allow entry {uuid, major?, minor?}
+   * right in the range notifier, before they are queued, tracked or serialized.
+   */
+  @ReactMethod
+  public void setBeaconFilter(ReadableMap config, Callback resolve, Callback reject) {
+    try {
+      BeaconFilter.Rules rules = null;
+      if (config.hasKey("allow") && !config.isNull("allow")) {
+        ReadableArray allow = config.getArray("allow");
+        rules = new BeaconFilter.Rules();
+        for (int i = 0; i < allow.size(); i++) {
+          ReadableMap entry = allow.getMap(i);
+          rules.allow(
+            entry.getString("uuid"),
+            entry.hasKey("major") ? entry.getInt("major") : -1,
+            entry.hasKey("minor") ? entry.getInt("minor") : -1
+          );
+        }
+      }
+      mBeaconFilter.setConfig(
+        config.hasKey("enabled") && config.getBoolean("enabled"),
+        config.hasKey("minRssi") ? config.getInt("minRssi") : BeaconFilter.RSSI_NONE,
+        rules
+      );
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "setBeaconFilter, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  /**
+   * Latest ranged beacons per region, read on demand from the native snapshot.
+   * Query fields (all optional): identifier, uuid, major, minor, minRssi, maxAge (milliseconds,
+   * regions not ranged since are skipped), limit (per region) and sortBy ('distance' or 'rssi').
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getRangedBeacons(ReadableMap query) {
+    RangingSnapshot.Query snapshotQuery = new RangingSnapshot.Query(
+      query.hasKey("identifier") ? query.getString("identifier") : null,
+      query.hasKey("uuid") ? query.getString("uuid") : null,
+      query.hasKey("major") ? query.getInt("major") : -1,
+      query.hasKey("minor") ? query.getInt("minor") : -1,
+      query.hasKey("minRssi") ? query.getInt("minRssi") : RangingSnapshot.Query.RSSI_NONE,
+      query.hasKey("maxAge") ? (long) query.getDouble("maxAge") : 0
+    );
+    BeaconRanker ranker = new BeaconRanker(
+      query.hasKey("limit") ? query.getInt("limit") : 0,
+      query.hasKey("sortBy") && "rssi".equals(query.getString("sortBy")) ? BeaconRanker.SORT_BY_RSSI : BeaconRanker.SORT_BY_DISTANCE
+    );
     WritableMap map = new WritableNativeMap();
-    WritableMap r = new WritableNativeMap();
-    r.putString("identifier", region.getUniqueId());
-    r.putString("uuid", region.getId1() != null ? region.getId1().toString() : "");
-    map.putMap("region", r);
-    WritableArray a = new WritableNativeArray();
-    for (Beacon beacon : beacons) {
-      WritableMap b = new WritableNativeMap();
-      b.putString("uuid", beacon.getId1().toString());
-      if (beacon.getIdentifiers().size() > 2) {
-        b.putInt("major", beacon.getId2().toInt());
-        b.putInt("minor", beacon.getId3().toInt());
-      }
-      b.putInt("rssi", beacon.getRssi());
-      if (beacon.getDistance() == Double.POSITIVE_INFINITY
-        || Double.isNaN(beacon.getDistance())
-        || beacon.getDistance() == Double.NaN
-        || beacon.getDistance() == Double.NEGATIVE_INFINITY) {
-        b.putDouble("distance", 999.0);
-        b.putString("proximity", "far");
-      } else {
-        b.putDouble("distance", beacon.getDistance());
-        b.putString("proximity", getProximity(beacon.getDistance()));
+    WritableArray regions = new WritableNativeArray();
+    for (RangingSnapshot.Entry entry : mRangingSnapshot.query(snapshotQuery, System.currentTimeMillis())) {
+      BeaconTracker tracker;
+      synchronized (mBeaconTrackers) {
+        tracker = mBeaconTrackers.get(entry.region.getUniqueId());
       }
-      a.pushMap(b);
+      WritableMap r = mBeaconSerializer.serializeRanging(ranker.selectTop(entry.beacons, tracker), entry.region, tracker);
+      r.putDouble("timestamp", entry.timestamp);
+      regions.pushMap(r);
     }
-    map.putArray("beacons", a);
+    map.putArray("regions", regions);
     return map;
   }
 
-  private String getProximity(double distance) {
-    if (distance == -1.0) {
-      return "unknown";
-    } else if (distance < 1) {
-      return "immediate";
-    } else if (distance < 3) {
-      return "near";
+  private void onRangedBeacons(Collection<Beacon> beacons, Region region) {
+    long startNanos = BeaconsLog.isTraceEnabled() ? System.nanoTime() : 0;
+    if (BeaconsLog.isDebugEnabled()) {
+      Log.d(LOG_TAG, "rangingConsumer didRangeBeaconsInRegion, region: " + region.getUniqueId() + ", beacons: " + beacons.size());
+    }
+    BeaconsMetrics.recordRangingCycle(region.getUniqueId(), beacons.size());
+    for (Beacon beacon : beacons) {
+      mParserRegistry.recordMatch(beacon.getParserIdentifier());
+    }
+    long now = System.currentTimeMillis();
+    if (isSimulated(region)) {
+      ScanSimulator simulator = mScanSimulator;
+      if (simulator != null) {
+        simulator.onCycleProcessed(beacons.size());
+      }
+    } else {
+      if (mSightingRecorderEnabled) {
+        mSightingRecorder.record(beacons, now);
+      }
+      if (mTelemetryUploader.isEnabled()) {
+        mTelemetryUploader.recordSightings(beacons, region, now);
+      }
+      mAdaptiveScanScheduler.onRangingCycle(region.getUniqueId(), beacons);
+    }
+    if (mRegionDebouncer.isEnabled() && !beacons.isEmpty()) {
+      int maxRssi = RegionDebouncer.RSSI_NONE;
+      for (Beacon beacon : beacons) {
+        maxRssi = Math.max(maxRssi, beacon.getRssi());
+      }
+      mRegionDebouncer.onRssi(region, maxRssi);
+    }
+    boolean aggregatedOnly = false;
+    if (mZoneEngine.isEnabled()) {
+      mZoneEngine.update(beacons, now);
+      aggregatedOnly = mZonesOnly;
+    }
+    BeaconTracker tracker = getBeaconTracker(region.getUniqueId());
+    if (tracker != null) {
+      tracker.update(beacons, now);
+    }
+    if (mPositionEstimator.isEnabled()) {
+      mPositionEstimator.update(beacons, tracker, now);
+      aggregatedOnly |= mPositionOnly;
+    }
+    if (!mRangingSubscriptions.isEmpty()) {
+      mRangingSubscriptions.dispatch(beacons, region, tracker);
+      aggregatedOnly |= mSubscriptionsOnly;
+    }
+    if (aggregatedOnly) {
+      if (startNanos != 0) {
+        BeaconsLog.trace("aggregated", region.getUniqueId(), beacons.size(), startNanos);
+      }
+      return;
+    }
+    BeaconRanker ranker;
+    synchronized (mBeaconRankers) {
+      ranker = mBeaconRankers.get(region.getUniqueId());
+    }
+    if (ranker != null) {
+      List<Beacon> ranked = ranker.selectTop(beacons, tracker);
+      if (ranker.updateNearest(ranked)) {
+        sendEvent(mReactContext, "nearestBeaconDidChange", mBeaconSerializer.serializeNearest(ranked.isEmpty() ? null : ranked.get(0), region, tracker));
+      }
+      beacons = ranked;
+    }
+    if (mRangingBuffer.isEnabled()) {
+      mRangingBuffer.write(beacons, region, tracker, now);
+      if (mRangingBufferOnly) {
+        if (startNanos != 0) {
+          BeaconsLog.trace("buffered", region.getUniqueId(), beacons.size(), startNanos);
+        }
+        return;
+      }
+    }
+    if (mRangingBatchEnabled) {
+      mRangingBatchDispatcher.offer(beacons, region);
+    } else if (mRangingDeltaEnabled) {
+      long buildStartNanos = System.nanoTime();
+      RangingDeltaTracker.Delta delta = mRangingDeltaTracker.update(region.getUniqueId(), beacons);
+      if (!delta.isEmpty()) {
+        WritableMap payload = mBeaconSerializer.serializeRangingDelta(delta, region, tracker);
+        BeaconsMetrics.recordPayloadBuild(System.nanoTime() - buildStartNanos);
+        sendEvent(mReactContext, "beaconsDidRangeDelta", payload);
+      }
     } else {
-      return "far";
+      long buildStartNanos = System.nanoTime();
+      WritableMap payload = mBeaconSerializer.serializeRanging(beacons, region, tracker);
+      BeaconsMetrics.recordPayloadBuild(System.nanoTime() - buildStartNanos);
+      sendEvent(mReactContext, "beaconsDidRange", payload);
+    }
+    if (startNanos != 0) {
+      BeaconsLog.trace("didRangeBeaconsInRegion", region.getUniqueId(), beacons.size(), startNanos);
+    }
+  }
+
+  private final RangingSubscriptions mRangingSubscriptions = new RangingSubscriptions(new RangingSubscriptions.SubscriptionListener() {
+    @Override
+    public void onSubscriptionBeacons(String subscriptionId, List<Beacon> beacons, Region region, @Nullable BeaconTracker tracker) {
+      long buildStartNanos = System.nanoTime();
+      WritableMap payload = mBeaconSerializer.serializeRanging(beacons, region, tracker);
+      payload.putString("subscriptionId", subscriptionId);
+      BeaconsMetrics.recordPayloadBuild(System.nanoTime() - buildStartNanos);
+      sendEvent(mReactContext, "beaconsDidRangeSubscription", payload);
+    }
+  });
+
+  /**
+   * Registers (or replaces) a ranging subscription: 'beaconsDidRangeSubscription' events carry
+   * its id and only the beacons of its region matching its filter.
+   * Options (all optional): identifier, uuid, major, minor, minRssi, maxEmitRate (events per
+   * second), topK and sortBy ('distance' or 'rssi').
+   */
+  @ReactMethod
+  public void addRangingSubscription(String subscriptionId, ReadableMap options, Callback resolve, Callback reject) {
+    try {
+      mRangingSubscriptions.put(new RangingSubscriptions.Subscription(
+        subscriptionId,
+        new RangingSnapshot.Query(
+          options.hasKey("identifier") ? options.getString("identifier") : null,
+          options.hasKey("uuid") ? options.getString("uuid") : null,
+          options.hasKey("major") ? options.getInt("major") : -1,
+          options.hasKey("minor") ? options.getInt("minor") : -1,
+          options.hasKey("minRssi") ? options.getInt("minRssi") : RangingSnapshot.Query.RSSI_NONE,
+          0
+        ),
+        new BeaconRanker(
+          options.hasKey("topK") ? options.getInt("topK") : 0,
+          options.hasKey("sortBy") && "rssi".equals(options.getString("sortBy")) ? BeaconRanker.SORT_BY_RSSI : BeaconRanker.SORT_BY_DISTANCE
+        ),
+        options.hasKey("maxEmitRate") ? options.getDouble("maxEmitRate") : 0
+      ));
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "addRangingSubscription, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void removeRangingSubscription(String subscriptionId, Callback resolve) {
+    resolve.invoke(mRangingSubscriptions.remove(subscriptionId));
+  }
+
+  /**
+   * With subscriptions only, 'beaconsDidRange' events are not sent while subscriptions exist.
+   */
+  @ReactMethod
+  public void setRangingSubscriptionsOnly(boolean subscriptionsOnly) {
+    mSubscriptionsOnly = subscriptionsOnly;
+  }
+
+  private final ZoneEngine mZoneEngine = new ZoneEngine(new ZoneEngine.ZoneListener() {
+    @Override
+    public void onZoneEnter(String zoneId, double score) {
+      WritableMap map = mBeaconSerializer.createMap();
+      map.putString("zone", zoneId);
+      map.putDouble("score", score);
+      sendEvent(mReactContext, "zoneDidEnter", map);
+    }
+
+    @Override
+    public void onZoneExit(String zoneId) {
+      WritableMap map = mBeaconSerializer.createMap();
+      map.putString("zone", zoneId);
+      sendEvent(mReactContext, "zoneDidExit", map);
+    }
+
+    @Override
+    public void onNearestZoneChanged(@Nullable String zoneId, double score) {
+      WritableMap map = mBeaconSerializer.createMap();
+      map.putString("zone", zoneId);
+      map.putDouble("score", score);
+      sendEvent(mReactContext, "nearestZoneDidChange", map);
+    }
+  });
+
+  /**
+   * Zones are groups of beacons {uuid, major, minor} with a rule ('strongest', 'average' or
+   * 'anyAbove') on their rssi. With zonesOnly, ranged beacons stop at the zone engine and
+   * only zone events are emitted.
+   */
+  @ReactMethod
+  public void setZones(ReadableMap config, Callback resolve, Callback reject) {
+    try {
+      ZoneEngine.Zones zones = new ZoneEngine.Zones();
+      ReadableArray zoneArray = config.hasKey("zones") ? config.getArray("zones") : null;
+      for (int i = 0; zoneArray != null && i < zoneArray.size(); i++) {
+        ReadableMap zone = zoneArray.getMap(i);
+        ReadableArray beacons = zone.getArray("beacons");
+        int[] members = new int[beacons.size()];
+        for (int j = 0; j < beacons.size(); j++) {
+          ReadableMap beacon = beacons.getMap(j);
+          members[j] = zones.addMember(beacon.getString("uuid"), beacon.getInt("major"), beacon.getInt("minor"));
+        }
+        String rule = zone.hasKey("rule") ? zone.getString("rule") : "strongest";
+        zones.addZone(
+          zone.getString("identifier"),
+          "average".equals(rule) ? ZoneEngine.RULE_AVERAGE : "anyAbove".equals(rule) ? ZoneEngine.RULE_ANY_ABOVE : ZoneEngine.RULE_STRONGEST,
+          zone.hasKey("rssiThreshold") ? zone.getInt("rssiThreshold") : ZoneEngine.RSSI_NONE,
+          zone.hasKey("minBeacons") ? zone.getInt("minBeacons") : 1,
+          members
+        );
+      }
+      if (config.hasKey("expiration")) {
+        zones.setExpiration((long) config.getDouble("expiration"));
+      }
+      mZoneEngine.setZones(zones);
+      mZonesOnly = config.hasKey("zonesOnly") && config.getBoolean("zonesOnly");
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "setZones, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  private final PositionEstimator mPositionEstimator = new PositionEstimator(new PositionEstimator.PositionListener() {
+    @Override
+    public void onPosition(double x, double y, double accuracy, int anchorCount) {
+      WritableMap map = mBeaconSerializer.createMap();
+      map.putDouble("x", x);
+      map.putDouble("y", y);
+      map.putDouble("accuracy", accuracy);
+      map.putInt("beacons", anchorCount);
+      sendEvent(mReactContext, "positionDidUpdate", map);
+    }
+  });
+
+  /**
+   * Anchors are beacons {uuid, major, minor} with their x / y coordinates in meters. With
+   * positionOnly, ranged beacons stop at the estimator and only positions are emitted.
+   */
+  @ReactMethod
+  public void setPositioningConfig(ReadableMap config, Callback resolve, Callback reject) {
+    try {
+      PositionEstimator.Anchors anchors = null;
+      if (config.hasKey("enabled") && config.getBoolean("enabled") && config.hasKey("anchors")) {
+        ReadableArray anchorArray = config.getArray("anchors");
+        anchors = new PositionEstimator.Anchors();
+        for (int i = 0; i < anchorArray.size(); i++) {
+          ReadableMap anchor = anchorArray.getMap(i);
+          anchors.add(
+            anchor.getString("uuid"),
+            anchor.getInt("major"),
+            anchor.getInt("minor"),
+            anchor.getDouble("x"),
+            anchor.getDouble("y")
+          );
+        }
+      }
+      mPositionEstimator.setConfig(
+        anchors,
+        config.hasKey("smoothingFactor") ? config.getDouble("smoothingFactor") : PositionEstimator.DEFAULT_SMOOTHING_FACTOR,
+        config.hasKey("outlierThreshold") ? config.getDouble("outlierThreshold") : PositionEstimator.DEFAULT_OUTLIER_THRESHOLD,
+        config.hasKey("expiration") ? (long) config.getDouble("expiration") : PositionEstimator.DEFAULT_EXPIRATION,
+        config.hasKey("maxEmitRate") ? config.getDouble("maxEmitRate") : 0
+      );
+      mPositionOnly = config.hasKey("positionOnly") && config.getBoolean("positionOnly");
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "setPositioningConfig, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  private final RangingBatchDispatcher mRangingBatchDispatcher = new RangingBatchDispatcher(new RangingBatchDispatcher.FlushListener() {
+    @Override
+    public void onFlush(final List<RangingBatchDispatcher.Frame> frames, final int droppedFrames) {
+      mEventPipeline.execute(() -> emitRangingBatch(frames, droppedFrames));
+    }
+  });
+
+  private void emitRangingBatch(List<RangingBatchDispatcher.Frame> frames, int droppedFrames) {
+    if (!mReactContext.hasActiveReactInstance()) {
+      return;
+    }
+    long startNanos = BeaconsLog.isTraceEnabled() ? System.nanoTime() : 0;
+    long buildStartNanos = System.nanoTime();
+    WritableMap map = mBeaconSerializer.createMap();
+    WritableArray regions = mBeaconSerializer.createArray();
+    int regionCount = 0;
+    for (RangingBatchDispatcher.Frame frame : frames) {
+      BeaconTracker tracker = getBeaconTracker(frame.region.getUniqueId());
+      if (mRangingDeltaEnabled) {
+        RangingDeltaTracker.Delta delta = mRangingDeltaTracker.update(frame.region.getUniqueId(), frame.beacons);
+        if (delta.isEmpty()) {
+          continue;
+        }
+        regions.pushMap(mBeaconSerializer.serializeRangingDelta(delta, frame.region, tracker));
+      } else {
+        regions.pushMap(mBeaconSerializer.serializeRanging(frame.beacons, frame.region, tracker));
+      }
+      regionCount++;
+    }
+    if (regionCount == 0) {
+      return;
+    }
+    map.putArray("regions", regions);
+    map.putInt("droppedFrames", droppedFrames);
+    BeaconsMetrics.recordPayloadBuild(System.nanoTime() - buildStartNanos);
+    sendEvent(mReactContext, "beaconsDidRangeBatch", map);
+    if (startNanos != 0) {
+      BeaconsLog.trace("beaconsDidRangeBatch", "*", regionCount, startNanos);
     }
   }
 
   @ReactMethod
   public void stopRanging(String regionId, String beaconUuid, int minor, int major, Callback resolve, Callback reject) {
-    Region region = createRegion(
-      regionId,
-      beaconUuid,
-      String.valueOf(minor).equals("-1") ? "" : String.valueOf(minor),
-      String.valueOf(major).equals("-1") ? "" : String.valueOf(major)
-    );
+    Region region = lookUpRegion(regionId, beaconUuid, minor, major);
     try {
       mBeaconManager.stopRangingBeacons(region);
+      onRangingStopped(regionId);
       resolve.invoke();
     } catch (Exception e) {
       Log.e(LOG_TAG, "stopRanging, error: ", e);
@@ -445,33 +1168,393 @@ public class BeaconsAndroidModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void requestStateForRegion(String regionId, String beaconUuid, int minor, int major) {
-    Region region = createRegion(
-      regionId,
-      beaconUuid,
-      String.valueOf(minor).equals("-1") ? "" : String.valueOf(minor),
-      String.valueOf(major).equals("-1") ? "" : String.valueOf(major)
-    );
+    Region region = lookUpRegion(regionId, beaconUuid, minor, major);
     mBeaconManager.requestStateForRegion(region);
   }
 
+  private void onRangingStopped(String regionId) {
+    mRegionIndex.removeRanged(regionId);
+    mRangingSnapshot.remove(regionId);
+    mAdaptiveScanScheduler.remove(regionId);
+    mRangingBatchDispatcher.remove(regionId);
+    mRangingDeltaTracker.remove(regionId);
+    synchronized (mBeaconTrackers) {
+      mBeaconTrackers.remove(regionId);
+    }
+    synchronized (mBeaconRankers) {
+      mBeaconRankers.remove(regionId);
+    }
+  }
+
+  /***********************************************************************************************
+   * Bulk regions
+   **********************************************************************************************/
+  @ReactMethod
+  public void startMonitoringRegions(ReadableArray regions, Callback resolve, Callback reject) {
+    try {
+      List<Region> parsed = obtainRegions(regions);
+      for (Region region : parsed) {
+        mBeaconManager.startMonitoring(region);
+        mRegionIndex.putMonitored(region);
+      }
+      mStateStore.setMonitoredRegions(mRegionIndex.getMonitored());
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "startMonitoringRegions, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void startRangingRegions(ReadableArray regions, Callback resolve, Callback reject) {
+    try {
+      List<Region> parsed = obtainRegions(regions);
+      for (Region region : parsed) {
+        mBeaconManager.startRangingBeacons(region);
+        mRegionIndex.putRanged(region);
+      }
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "startRangingRegions, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  /**
+   * Stops both monitoring and ranging of the given region identifiers.
+   */
+  @ReactMethod
+  public void stopRegions(ReadableArray regionIds, Callback resolve, Callback reject) {
+    try {
+      Map<String, Region> monitored = new HashMap<>();
+      for (Region region : mBeaconManager.getMonitoredRegions()) {
+        monitored.put(region.getUniqueId(), region);
+      }
+      Map<String, Region> ranged = new HashMap<>();
+      for (Region region : mBeaconManager.getRangedRegions()) {
+        ranged.put(region.getUniqueId(), region);
+      }
+      for (int i = 0; i < regionIds.size(); i++) {
+        String regionId = regionIds.getString(i);
+        Region region = monitored.get(regionId);
+        if (region != null) {
+          mBeaconManager.stopMonitoring(region);
+        }
+        mRegionIndex.removeMonitored(regionId);
+        mRegionDebouncer.remove(regionId);
+        region = ranged.get(regionId);
+        if (region != null) {
+          mBeaconManager.stopRangingBeacons(region);
+        }
+        onRangingStopped(regionId);
+      }
+      mStateStore.setMonitoredRegions(mRegionIndex.getMonitored());
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "stopRegions, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  /**
+   * Parses every region first so that an invalid entry rejects the whole call before any
+   * region is started.
+   */
+  private List<Region> obtainRegions(ReadableArray regions) {
+    List<Region> parsed = new ArrayList<>(regions.size());
+    for (int i = 0; i < regions.size(); i++) {
+      ReadableMap region = regions.getMap(i);
+      parsed.add(obtainRegion(
+        region.getString("identifier"),
+        region.hasKey("uuid") && !region.isNull("uuid") ? region.getString("uuid") : null,
+        region.hasKey("minor") ? region.getInt("minor") : -1,
+        region.hasKey("major") ? region.getInt("major") : -1
+      ));
+    }
+    return parsed;
+  }
+
+  private Region obtainRegion(String regionId, String beaconUuid, int minor, int major) {
+    return mRegionIndex.obtain(regionId, beaconUuid, toIdentifierString(minor), toIdentifierString(major));
+  }
+
+  private Region lookUpRegion(String regionId, String beaconUuid, int minor, int major) {
+    Region region = mRegionIndex.get(regionId);
+    return region != null ? region : createRegion(regionId, beaconUuid, toIdentifierString(minor), toIdentifierString(major));
+  }
+
+  private static String toIdentifierString(int value) {
+    return value == -1 ? "" : String.valueOf(value);
+  }
+
+
+  /***********************************************************************************************
+   * Sightings
+   **********************************************************************************************/
+  @ReactMethod
+  public void setSightingRecorderConfig(ReadableMap config) {
+    mSightingRecorderEnabled = config.hasKey("enabled") && config.getBoolean("enabled");
+    mSightingRecorder.setLimits(
+      config.hasKey("maxFileSize") ? (long) config.getDouble("maxFileSize") : SightingRecorder.DEFAULT_MAX_FILE_SIZE,
+      config.hasKey("maxFiles") ? config.getInt("maxFiles") : SightingRecorder.DEFAULT_MAX_FILES
+    );
+  }
+
+  @ReactMethod
+  public void getSightings(double offset, int limit, final Callback resolve, final Callback reject) {
+    mSightingRecorder.readPage((long) offset, limit, new SightingRecorder.PageCallback() {
+      @Override
+      public void onPage(List<SightingRecorder.Sighting> sightings, long nextCursor) {
+        WritableMap map = new WritableNativeMap();
+        WritableArray array = new WritableNativeArray();
+        for (SightingRecorder.Sighting sighting : sightings) {
+          WritableMap s = new WritableNativeMap();
+          s.putDouble("timestamp", sighting.timestamp);
+          s.putString("uuid", sighting.getId1String());
+          if (sighting.major != -1) {
+            s.putInt("major", sighting.major);
+            s.putInt("minor", sighting.minor);
+          }
+          s.putInt("rssi", sighting.rssi);
+          s.putDouble("distance", sighting.distance);
+          array.pushMap(s);
+        }
+        map.putArray("sightings", array);
+        map.putDouble("nextOffset", nextCursor);
+        resolve.invoke(map);
+      }
+
+      @Override
+      public void onError(Exception e) {
+        Log.e(LOG_TAG, "getSightings, error: ", e);
+        reject.invoke(e.getMessage());
+      }
+    });
+  }
+
+  @ReactMethod
+  public void clearSightings(Callback resolve) {
+    mSightingRecorder.clear();
+    resolve.invoke();
+  }
+
+  /***********************************************************************************************
+   * Telemetry
+   **********************************************************************************************/
+  /**
+   * Uploads sightings and region transitions natively: records are batched, gzipped, spooled
+   * to disk and POSTed to endpoint by a WorkManager job, even while JS is not running.
+   * Config: enabled, endpoint, headers, maxBatchSize (records), maxBatchAge (milliseconds),
+   * maxQueueSize (bytes).
+   */
+  @ReactMethod
+  public void setTelemetryConfig(ReadableMap config, Callback resolve, Callback reject) {
+    try {
+      String endpoint = config.hasKey("endpoint") ? config.getString("endpoint") : null;
+      if (endpoint != null) {
+        new URL(endpoint);
+      }
+      Map<String, String> headers = new HashMap<>();
+      if (config.hasKey("headers") && !config.isNull("headers")) {
+        ReadableMap h = config.getMap("headers");
+        ReadableMapKeySetIterator keys = h.keySetIterator();
+        while (keys.hasNextKey()) {
+          String key = keys.nextKey();
+          headers.put(key, h.getString(key));
+        }
+      }
+      mTelemetryUploader.setConfig(new TelemetryUploader.Config(
+        config.hasKey("enabled") && config.getBoolean("enabled"),
+        endpoint,
+        headers,
+        config.hasKey("persistHeaders") && config.getBoolean("persistHeaders"),
+        config.hasKey("maxBatchSize") ? config.getInt("maxBatchSize") : TelemetryUploader.DEFAULT_MAX_BATCH_SIZE,
+        config.hasKey("maxBatchAge") ? (long) config.getDouble("maxBatchAge") : TelemetryUploader.DEFAULT_MAX_BATCH_AGE,
+        config.hasKey("maxQueueSize") ? (long) config.getDouble("maxQueueSize") : TelemetryUploader.DEFAULT_MAX_QUEUE_SIZE
+      ));
+      resolve.invoke();
+    } catch (Exception e) {
+      Log.e(LOG_TAG, "setTelemetryConfig, error: ", e);
+      reject.invoke(e.getMessage());
+    }
+  }
+
+  @ReactMethod
+  public void flushTelemetry(Callback resolve) {
+    mTelemetryUploader.flush();
+    resolve.invoke();
+  }
+
+  /***********************************************************************************************
+   * Simulation
+   **********************************************************************************************/
+  /**
+   * Feeds a synthetic trace (or with replay, the recorded sightings) through the range and
+   * monitor notifiers, so the simulated region takes the whole ranging and monitoring path, and
+   * resolves with the latency / throughput / heap report once every cycle was processed.
+   * While it runs, events go to a counting sink instead of JS, which is why no region may be
+   * monitored or ranged. Simulated cycles are not recorded, uploaded, kept in the ranging
+   * snapshot nor seen by adaptive scanning; the state left by the simulated region is dropped
+   * afterwards, its readings stay in the ranging buffer.
+   */
+  @ReactMethod
+  public void startSimulation(ReadableMap config, final Callback resolve, final Callback reject) {
+    synchronized (this) {
+      if (mScanSimulator != null) {
+        reject.invoke("A simulation is already running");
+        return;
+      }
+    }
+    if (!mBeaconManager.getMonitoredRegions().isEmpty() || !mBeaconManager.getRangedRegions().isEmpty()) {
+      reject.invoke("Stop monitoring and ranging before starting a simulation");
+      return;
+    }
+    final ScanSimulator.Config simulatorConfig = new ScanSimulator.Config(
+      config.hasKey("identifier") ? config.getString("identifier") : "simulation",
+      config.hasKey("beaconCount") ? config.getInt("beaconCount") : ScanSimulator.DEFAULT_BEACON_COUNT,
+      config.hasKey("cycles") ? config.getInt("cycles") : ScanSimulator.DEFAULT_CYCLES,
+      config.hasKey("cycleInterval") ? (long) config.getDouble("cycleInterval") : ScanSimulator.DEFAULT_CYCLE_INTERVAL,
+      config.hasKey("speedup") ? config.getDouble("speedup") : 0,
+      config.hasKey("churn") ? config.getDouble("churn") : 0,
+      config.hasKey("rssiNoise") ? config.getDouble("rssiNoise") : 0,
+      config.hasKey("seed") ? (long) config.getDouble("seed") : 0
+    );
+    if (config.hasKey("replay") && config.getBoolean("replay")) {
+      int limit = config.hasKey("replayLimit") ? config.getInt("replayLimit") : Integer.MAX_VALUE;
+      mSightingRecorder.readPage(0, limit, new SightingRecorder.PageCallback() {
+        @Override
+        public void onPage(List<SightingRecorder.Sighting> sightings, long nextCursor) {
+          runSimulation(ScanSimulator.replay(mRangeNotifier, mMonitorNotifier, mEventPipeline::execute, simulatorConfig, sightings), new EventSink.Counter(), resolve, reject);
+        }
+
+        @Override
+        public void onError(Exception e) {
+          Log.e(LOG_TAG, "startSimulation, error: ", e);
+          reject.invoke(e.getMessage());
+        }
+      });
+    } else {
+      runSimulation(new ScanSimulator(mRangeNotifier, mMonitorNotifier, mEventPipeline::execute, simulatorConfig), new EventSink.Counter(), resolve, reject);
+    }
+  }
+
+  private void runSimulation(final ScanSimulator simulator, final EventSink.Counter sink, final Callback resolve, Callback reject) {
+    synchronized (this) {
+      if (mScanSimulator != null) {
+        reject.invoke("A simulation is already running");
+        return;
+      }
+      mScanSimulator = simulator;
+      mSimulatedRegionId = simulator.getRegionId();
+      mEventSink = sink;
+    }
+    final long droppedBefore = mEventPipeline.getDroppedCount();
+    simulator.start(new ScanSimulator.CompletionListener() {
+      @Override
+      public void onComplete(final ScanSimulator.Report report) {
+        // queued behind the cycles that may still be pending after a drain timeout
+        Runnable finish = () -> {
+          onSimulationEnded(simulator);
+          WritableMap map = new WritableNativeMap();
+          map.putBoolean("cancelled", report.cancelled);
+          map.putInt("cycles", report.cycles);
+          map.putDouble("beacons", report.beacons);
+          map.putInt("processedCycles", report.processedCycles);
+          map.putDouble("processedBeacons", report.processedBeacons);
+          map.putInt("coalescedCycles", report.getCoalescedCycles());
+          map.putDouble("elapsed", report.elapsedNanos / 1e6);
+          map.putDouble("cyclesPerSecond", report.getCyclesPerSecond());
+          map.putDouble("beaconsPerSecond", report.getBeaconsPerSecond());
+          map.putInt("latencySamples", report.latencySamples);
+          map.putDouble("latencyP50", report.latencyP50Nanos / 1e6);
+          map.putDouble("latencyP95", report.latencyP95Nanos / 1e6);
+          map.putDouble("latencyP99", report.latencyP99Nanos / 1e6);
+          map.putDouble("latencyMax", report.latencyMaxNanos / 1e6);
+          map.putDouble("pipelineDropped", mEventPipeline.getDroppedCount() - droppedBefore);
+          map.putDouble("heapStart", report.heapStartBytes);
+          map.putDouble("heapPeak", report.heapPeakBytes);
+          map.putDouble("heapEnd", report.heapEndBytes);
+          map.putDouble("heapGrowth", report.getHeapGrowthBytes());
+          WritableMap events = new WritableNativeMap();
+          for (Map.Entry<String, Integer> entry : sink.getCounts().entrySet()) {
+            events.putInt(entry.getKey(), entry.getValue());
+          }
+          map.putMap("events", events);
+          resolve.invoke(map);
+        };
+        if (!mEventPipeline.execute(finish)) {
+          finish.run();
+        }
+      }
+    });
+  }
+
+  /**
+   * Stops the running simulation, its promise still resolves with the partial report.
+   */
+  @ReactMethod
+  public synchronized void stopSimulation() {
+    if (mScanSimulator != null) {
+      mScanSimulator.cancel();
+    }
+  }
+
+  private boolean isSimulated(Region region) {
+    String regionId = mSimulatedRegionId;
+    return regionId != null && regionId.equals(region.getUniqueId());
+  }
+
+  /**
+   * Runs on the event pipeline after the last simulated cycle: drops what the simulated region
+   * left behind, pending batches and debounced transitions included, before JS gets the events
+   * back.
+   */
+  private void onSimulationEnded(ScanSimulator simulator) {
+    String regionId = simulator.getRegionId();
+    mRegionDebouncer.remove(regionId);
+    mRangingBatchDispatcher.remove(regionId);
+    mRangingDeltaTracker.remove(regionId);
+    mZoneEngine.reset();
+    mPositionEstimator.reset();
+    synchronized (mBeaconTrackers) {
+      mBeaconTrackers.remove(regionId);
+    }
+    synchronized (mBeaconRankers) {
+      mBeaconRankers.remove(regionId);
+    }
+    synchronized (this) {
+      if (mScanSimulator == simulator) {
+        mScanSimulator = null;
+      }
+      mSimulatedRegionId = null;
+      mEventSink = null;
+    }
+  }
 
   /***********************************************************************************************
    * Utils
    **********************************************************************************************/
   private void sendEvent(ReactContext reactContext, String eventName, @Nullable WritableMap params) {
-    if (reactContext.hasActiveReactInstance()) {
+    EventSink sink = mEventSink;
+    if (sink != null) {
+      sink.emit(eventName, params);
+    } else if (reactContext.hasActiveReactInstance()) {
+      long startNanos = System.nanoTime();
       reactContext
         .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
         .emit(eventName, params);
+      BeaconsMetrics.recordEmit(System.nanoTime() - startNanos);
+    } else {
+      BeaconsMetrics.recordDroppedInactive();
     }
   }
 
-  private Region createRegion(String regionId, String beaconUuid) {
+  static Region createRegion(String regionId, String beaconUuid) {
     Identifier id1 = (beaconUuid == null) ? null : Identifier.parse(beaconUuid);
     return new Region(regionId, id1, null, null);
   }
 
-  private Region createRegion(String regionId, String beaconUuid, String minor, String major) {
+  static Region createRegion(String regionId, String beaconUuid, String minor, String major) {
     Identifier id1 = (beaconUuid == null) ? null : Identifier.parse(beaconUuid);
     return new Region(
       regionId,
@@ -0,0 +1,44 @@
+package com.mackentoch.beaconsandroid;
+
+import android.util.Log;
+
+/**
+ * Module wide logging switch.
+ * Debug messages must be guarded with {@link #isDebugEnabled()} so that their strings are not
+ * built when debug logging is off. Trace mode logs one compact timing line per ranging cycle
+ * or batch instead of dumping beacons. Errors are always logged.
+ */
+final class BeaconsLog {
+  static final int LOG_LEVEL_DEBUG = Log.DEBUG;
+  static final int LOG_LEVEL_INFO = Log.INFO;
+  static final int LOG_LEVEL_WARN = Log.WARN;
+  static final int LOG_LEVEL_ERROR = Log.ERROR;
+  private static final String TRACE_TAG = "BeaconsTrace";
+
+  private static volatile int sLevel = LOG_LEVEL_WARN;
+  private static volatile boolean sTraceEnabled = false;
+
+  private BeaconsLog() {
+  }
+
+  static void setLevel(int level) {
+    sLevel = level;
+  }
+
+  static void setTraceEnabled(boolean enabled) {
+    sTraceEnabled = enabled;
+  }
+
+  static boolean isDebugEnabled() {
+    return sLevel <= LOG_LEVEL_DEBUG;
+  }
+
+  static boolean isTraceEnabled() {
+    return sTraceEnabled;
+  }
+
+  static void trace(String event, String regionId, int beaconCount, long startNanos) {
+    long elapsedMicros = (System.nanoTime() - startNanos) / 1000;
+    Log.d(TRACE_TAG, event + " region=" + regionId + " beacons=" + beaconCount + " us=" + elapsedMicros);
+  }
+}
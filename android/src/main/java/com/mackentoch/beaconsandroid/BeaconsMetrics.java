@@ -0,0 +1,184 @@
+package com.mackentoch.beaconsandroid;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process wide counters of the module.
+ * Recording only touches atomics (no locks), so the metrics stay enabled in production.
+ * Durations are kept as histograms with fixed microsecond buckets.
+ */
+final class BeaconsMetrics {
+  private static final long[] BUCKET_BOUNDS_MICROS = {100, 250, 500, 1000, 2500, 5000, 10000, 25000};
+  private static final long[] START_BUCKET_BOUNDS_MICROS = {10000, 50000, 100000, 250000, 500000, 1000000, 2500000, 5000000};
+
+  private static final class RegionStats {
+    final AtomicLong callbacks = new AtomicLong();
+    final AtomicLong beacons = new AtomicLong();
+    final AtomicLong lastBeacons = new AtomicLong();
+  }
+
+  private static final ConcurrentHashMap<String, RegionStats> sRegionStats = new ConcurrentHashMap<>();
+  private static final AtomicLongArray sPayloadBuildHistogram = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length + 1);
+  private static final AtomicLongArray sEmitHistogram = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length + 1);
+  private static final AtomicLong sEventsEmitted = new AtomicLong();
+  private static final AtomicLong sEventsDroppedInactive = new AtomicLong();
+  private static final AtomicLong sBeaconsFiltered = new AtomicLong();
+  private static final AtomicLong sHeadlessTasksEnqueued = new AtomicLong();
+  private static final AtomicLong sHeadlessTasksStarted = new AtomicLong();
+  private static final AtomicLong sHeadlessTasksFinished = new AtomicLong();
+  private static final AtomicLongArray sHeadlessColdStartHistogram = new AtomicLongArray(START_BUCKET_BOUNDS_MICROS.length + 1);
+  private static final AtomicLongArray sHeadlessWarmStartHistogram = new AtomicLongArray(START_BUCKET_BOUNDS_MICROS.length + 1);
+  private static final AtomicLong sTelemetryBatchesSpooled = new AtomicLong();
+  private static final AtomicLong sTelemetryBatchesUploaded = new AtomicLong();
+  private static final AtomicLong sTelemetryBatchesDropped = new AtomicLong();
+  private static final AtomicLong sTelemetryUploadsFailed = new AtomicLong();
+
+  private BeaconsMetrics() {
+  }
+
+  static void recordRangingCycle(String regionId, int beaconCount) {
+    RegionStats stats = sRegionStats.get(regionId);
+    if (stats == null) {
+      RegionStats created = new RegionStats();
+      stats = sRegionStats.putIfAbsent(regionId, created);
+      if (stats == null) {
+        stats = created;
+      }
+    }
+    stats.callbacks.incrementAndGet();
+    stats.beacons.addAndGet(beaconCount);
+    stats.lastBeacons.set(beaconCount);
+  }
+
+  static void recordPayloadBuild(long elapsedNanos) {
+    sPayloadBuildHistogram.incrementAndGet(bucketOf(elapsedNanos, BUCKET_BOUNDS_MICROS));
+  }
+
+  static void recordEmit(long elapsedNanos) {
+    sEventsEmitted.incrementAndGet();
+    sEmitHistogram.incrementAndGet(bucketOf(elapsedNanos, BUCKET_BOUNDS_MICROS));
+  }
+
+  static void recordDroppedInactive() {
+    sEventsDroppedInactive.incrementAndGet();
+  }
+
+  static void recordFiltered(int beaconCount) {
+    sBeaconsFiltered.addAndGet(beaconCount);
+  }
+
+  static void recordHeadlessTaskEnqueued() {
+    sHeadlessTasksEnqueued.incrementAndGet();
+  }
+
+  static void recordHeadlessTaskStarted(long elapsedNanos, boolean coldStart) {
+    sHeadlessTasksStarted.incrementAndGet();
+    AtomicLongArray histogram = coldStart ? sHeadlessColdStartHistogram : sHeadlessWarmStartHistogram;
+    histogram.incrementAndGet(bucketOf(elapsedNanos, START_BUCKET_BOUNDS_MICROS));
+  }
+
+  static void recordHeadlessTaskFinished() {
+    sHeadlessTasksFinished.incrementAndGet();
+  }
+
+  static void recordTelemetryBatchSpooled() {
+    sTelemetryBatchesSpooled.incrementAndGet();
+  }
+
+  static void recordTelemetryBatchUploaded() {
+    sTelemetryBatchesUploaded.incrementAndGet();
+  }
+
+  static void recordTelemetryBatchDropped() {
+    sTelemetryBatchesDropped.incrementAndGet();
+  }
+
+  static void recordTelemetryUploadFailed() {
+    sTelemetryUploadsFailed.incrementAndGet();
+  }
+
+  static void reset() {
+    sRegionStats.clear();
+    for (int i = 0; i < sPayloadBuildHistogram.length(); i++) {
+      sPayloadBuildHistogram.set(i, 0);
+      sEmitHistogram.set(i, 0);
+    }
+    for (int i = 0; i < sHeadlessColdStartHistogram.length(); i++) {
+      sHeadlessColdStartHistogram.set(i, 0);
+      sHeadlessWarmStartHistogram.set(i, 0);
+    }
+    sEventsEmitted.set(0);
+    sEventsDroppedInactive.set(0);
+    sBeaconsFiltered.set(0);
+    sHeadlessTasksEnqueued.set(0);
+    sHeadlessTasksStarted.set(0);
+    sHeadlessTasksFinished.set(0);
+    sTelemetryBatchesSpooled.set(0);
+    sTelemetryBatchesUploaded.set(0);
+    sTelemetryBatchesDropped.set(0);
+    sTelemetryUploadsFailed.set(0);
+  }
+
+  static WritableMap snapshot() {
+    WritableMap map = new WritableNativeMap();
+    WritableMap regions = new WritableNativeMap();
+    for (Map.Entry<String, RegionStats> entry : sRegionStats.entrySet()) {
+      RegionStats stats = entry.getValue();
+      long callbacks = stats.callbacks.get();
+      WritableMap r = new WritableNativeMap();
+      r.putDouble("callbacks", callbacks);
+      r.putDouble("beaconsPerCycle", callbacks > 0 ? (double) stats.beacons.get() / callbacks : 0);
+      r.putDouble("lastBeacons", stats.lastBeacons.get());
+      regions.putMap(entry.getKey(), r);
+    }
+    map.putMap("regions", regions);
+    map.putMap("payloadBuildTime", histogramToMap(sPayloadBuildHistogram, BUCKET_BOUNDS_MICROS));
+    map.putMap("emitTime", histogramToMap(sEmitHistogram, BUCKET_BOUNDS_MICROS));
+    map.putDouble("eventsEmitted", sEventsEmitted.get());
+    map.putDouble("eventsDroppedInactive", sEventsDroppedInactive.get());
+    map.putDouble("beaconsFiltered", sBeaconsFiltered.get());
+    map.putDouble("headlessTasksEnqueued", sHeadlessTasksEnqueued.get());
+    map.putDouble("headlessTasksStarted", sHeadlessTasksStarted.get());
+    map.putDouble("headlessTasksFinished", sHeadlessTasksFinished.get());
+    map.putMap("headlessColdStartTime", histogramToMap(sHeadlessColdStartHistogram, START_BUCKET_BOUNDS_MICROS));
+    map.putMap("headlessWarmStartTime", histogramToMap(sHeadlessWarmStartHistogram, START_BUCKET_BOUNDS_MICROS));
+    map.putDouble("telemetryBatchesSpooled", sTelemetryBatchesSpooled.get());
+    map.putDouble("telemetryBatchesUploaded", sTelemetryBatchesUploaded.get());
+    map.putDouble("telemetryBatchesDropped", sTelemetryBatchesDropped.get());
+    map.putDouble("telemetryUploadsFailed", sTelemetryUploadsFailed.get());
+    return map;
+  }
+
+  private static int bucketOf(long elapsedNanos, long[] boundsMicros) {
+    long micros = elapsedNanos / 1000;
+    for (int i = 0; i < boundsMicros.length; i++) {
+      if (micros < boundsMicros[i]) {
+        return i;
+      }
+    }
+    return boundsMicros.length;
+  }
+
+  private static WritableMap histogramToMap(AtomicLongArray histogram, long[] boundsMicros) {
+    WritableMap map = new WritableNativeMap();
+    WritableArray bounds = new WritableNativeArray();
+    WritableArray counts = new WritableNativeArray();
+    for (long bound : boundsMicros) {
+      bounds.pushDouble(bound);
+    }
+    for (int i = 0; i < histogram.length(); i++) {
+      counts.pushDouble(histogram.get(i));
+    }
+    map.putArray("boundsMicros", bounds);
+    map.putArray("counts", counts);
+    return map;
+  }
+}
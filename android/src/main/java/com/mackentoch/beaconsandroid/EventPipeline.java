@@ -0,0 +1,146 @@
+package com.mackentoch.beaconsandroid;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single consumer thread fed by a bounded queue.
+ * AltBeacon notifiers only enqueue their work here and return, so payload building and
+ * emission never delay the next scan cycle. Tasks queued with {@link #execute(Runnable)}
+ * (monitoring transitions, states) run in order; up to taskCapacity of them are pending, past
+ * that the consumer is stuck (JS no longer drains the events) and new tasks are dropped and
+ * counted. Ranging frames queued with {@link #executeFrame(String, Runnable)} have one slot per
+ * key (region): a frame arriving while the previous one of its key is still pending replaces
+ * it, the stale one is dropped. At most capacity keys are pending, further frames of new keys
+ * are dropped. The queue holds capacity + taskCapacity entries, frames never wait on tasks.
+ */
+class EventPipeline {
+  static final int DEFAULT_CAPACITY = 64;
+  static final int DEFAULT_TASK_CAPACITY = 1024;
+
+  private final AtomicLong mDroppedCount = new AtomicLong();
+  private final AtomicLong mDroppedTaskCount = new AtomicLong();
+  private final AtomicLong mProcessedCount = new AtomicLong();
+  private final AtomicInteger mPendingTasks = new AtomicInteger();
+  private final int mCapacity;
+  private final int mTaskCapacity;
+  private final ThreadPoolExecutor mExecutor;
+  private final Map<String, Runnable> mPendingFrames = new HashMap<>();
+
+  EventPipeline(int capacity, int taskCapacity) {
+    this.mCapacity = capacity;
+    this.mTaskCapacity = taskCapacity;
+    this.mExecutor = new ThreadPoolExecutor(
+      1,
+      1,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<Runnable>(capacity + taskCapacity),
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          return new Thread(runnable, "BeaconsEventPipeline");
+        }
+      },
+      // only rejects once shut down
+      new ThreadPoolExecutor.DiscardPolicy()
+    );
+  }
+
+  /**
+   * @return false if taskCapacity tasks were already pending, the task was dropped
+   */
+  boolean execute(final Runnable runnable) {
+    if (mPendingTasks.incrementAndGet() > mTaskCapacity) {
+      mPendingTasks.decrementAndGet();
+      mDroppedTaskCount.incrementAndGet();
+      return false;
+    }
+    submit(new Runnable() {
+      @Override
+      public void run() {
+        mPendingTasks.decrementAndGet();
+        runnable.run();
+      }
+    });
+    return true;
+  }
+
+  private void submit(final Runnable runnable) {
+    mExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        runnable.run();
+        mProcessedCount.incrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * Queues the latest frame of a key, replacing its pending frame if any.
+   */
+  void executeFrame(final String key, Runnable frame) {
+    synchronized (mPendingFrames) {
+      if (mPendingFrames.containsKey(key)) {
+        // the task queued for the previous frame runs this one instead
+        mPendingFrames.put(key, frame);
+        mDroppedCount.incrementAndGet();
+        return;
+      }
+      if (mPendingFrames.size() >= mCapacity) {
+        mDroppedCount.incrementAndGet();
+        return;
+      }
+      mPendingFrames.put(key, frame);
+    }
+    submit(new Runnable() {
+      @Override
+      public void run() {
+        Runnable latest;
+        synchronized (mPendingFrames) {
+          latest = mPendingFrames.remove(key);
+        }
+        if (latest != null) {
+          latest.run();
+        }
+      }
+    });
+  }
+
+  int getCapacity() {
+    return mCapacity;
+  }
+
+  int getTaskCapacity() {
+    return mTaskCapacity;
+  }
+
+  int getQueueDepth() {
+    return mExecutor.getQueue().size();
+  }
+
+  long getDroppedCount() {
+    return mDroppedCount.get();
+  }
+
+  long getDroppedTaskCount() {
+    return mDroppedTaskCount.get();
+  }
+
+  long getProcessedCount() {
+    return mProcessedCount.get();
+  }
+
+  void shutdown() {
+    mExecutor.shutdownNow();
+    synchronized (mPendingFrames) {
+      mPendingFrames.clear();
+    }
+  }
+}
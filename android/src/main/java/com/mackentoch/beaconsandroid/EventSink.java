@@ -0,0 +1,32 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Receives the events the module emits, in place of the JS device event emitter.
+ */
+interface EventSink {
+  void emit(String eventName, @Nullable WritableMap params);
+
+  /**
+   * Counts the events per name and drops them, used while a simulation runs.
+   */
+  final class Counter implements EventSink {
+    private final Map<String, Integer> mCounts = new HashMap<>();
+
+    @Override
+    public synchronized void emit(String eventName, @Nullable WritableMap params) {
+      Integer count = mCounts.get(eventName);
+      mCounts.put(eventName, count == null ? 1 : count + 1);
+    }
+
+    synchronized Map<String, Integer> getCounts() {
+      return new HashMap<>(mCounts);
+    }
+  }
+}
@@ -23,6 +23,22 @@ import com.google.common.util.concurrent.ListenableFuture;
 public class HeadlessJsTaskWorker extends ListenableWorker implements HeadlessJsTaskEventListener {
   private int taskId;
   private CallbackToFutureAdapter.Completer<Result> mCompleter;
+  private final Runnable mCompleteRunnable = () -> {
+    if (this.mCompleter != null) {
+      this.mCompleter.set(Result.success());
+    }
+  };
+
+  /**
+   * Keeps the worker of the last finished task running for keepWarmTimeout milliseconds, so
+   * that a task arriving within that period reuses the warm React context instead of paying
+   * a cold start. WorkManager counts the held worker as running: its execution time grows by
+   * up to keepWarmTimeout, and the held worker is stopped at the WorkManager execution limit
+   * (10 minutes). Set from JS with setHeadlessKeepWarmTimeout, 0 (default) to complete at once.
+   */
+  public static void setKeepWarmTimeout(long keepWarmTimeout) {
+    HeadlessTaskQueue.setKeepWarmTimeout(keepWarmTimeout);
+  }
 
   public HeadlessJsTaskWorker(
     @NonNull Context context,
@@ -52,25 +68,28 @@ public class HeadlessJsTaskWorker extends ListenableWorker implements HeadlessJs
 
   protected void startTask(final HeadlessJsTaskConfig taskConfig) {
     final ReactInstanceManager reactInstanceManager = this.getReactNativeHost().getReactInstanceManager();
-    ReactContext reactContext = reactInstanceManager.getCurrentReactContext();
-    if (reactContext == null) {
-      reactInstanceManager.addReactInstanceEventListener(new ReactInstanceManager.ReactInstanceEventListener() {
-        public void onReactContextInitialized(ReactContext reactContext) {
-          HeadlessJsTaskWorker.this.invokeStartTask(reactContext, taskConfig);
-          reactInstanceManager.removeReactInstanceEventListener(this);
+    final long enqueuedAt = System.nanoTime();
+    UiThreadUtil.runOnUiThread(() -> HeadlessTaskQueue.enqueue(reactInstanceManager, new HeadlessTaskQueue.PendingTask() {
+      @Override
+      public void start(ReactContext reactContext, boolean coldStart) {
+        invokeStartTask(reactContext, taskConfig, enqueuedAt, coldStart);
+      }
+
+      @Override
+      public void fail() {
+        if (mCompleter != null) {
+          mCompleter.set(Result.failure());
         }
-      });
-      reactInstanceManager.createReactContextInBackground();
-    } else {
-      this.invokeStartTask(reactContext, taskConfig);
-    }
+      }
+    }));
   }
 
-  private void invokeStartTask(ReactContext reactContext, final HeadlessJsTaskConfig taskConfig) {
+  private void invokeStartTask(ReactContext reactContext, final HeadlessJsTaskConfig taskConfig, final long enqueuedAt, final boolean coldStart) {
     final HeadlessJsTaskContext headlessJsTaskContext = HeadlessJsTaskContext.getInstance(reactContext);
     headlessJsTaskContext.addTaskEventListener(this);
     UiThreadUtil.runOnUiThread(() -> {
       this.taskId = headlessJsTaskContext.startTask(taskConfig);
+      BeaconsMetrics.recordHeadlessTaskStarted(System.nanoTime() - enqueuedAt, coldStart);
     });
   }
 
@@ -88,6 +107,7 @@ public class HeadlessJsTaskWorker extends ListenableWorker implements HeadlessJs
   @Override
   public void onStopped() {
     super.onStopped();
+    UiThreadUtil.runOnUiThread(() -> HeadlessTaskQueue.cancelHold(mCompleteRunnable));
     cleanUpTask();
   }
 
@@ -99,9 +119,10 @@ public class HeadlessJsTaskWorker extends ListenableWorker implements HeadlessJs
   @Override
   public void onHeadlessJsTaskFinish(int taskId) {
     if (this.taskId == taskId) {
+      BeaconsMetrics.recordHeadlessTaskFinished();
       if (this.mCompleter != null) {
-        this.mCompleter.set(Result.success());
         cleanUpTask();
+        HeadlessTaskQueue.hold(mCompleteRunnable);
       }
     }
   }
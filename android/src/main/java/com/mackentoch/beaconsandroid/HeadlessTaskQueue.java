@@ -0,0 +1,152 @@
+package com.mackentoch.beaconsandroid;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.bridge.ReactContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process wide scheduling of headless tasks, shared by all the workers.
+ * Tasks arriving while the React context is being created are queued and all started in the
+ * same HeadlessJsTaskContext once it is ready, instead of each worker waiting on its own.
+ * The queue waits on one ReactInstanceManager: when it is replaced, the next task waits on the
+ * new one instead. Tasks still queued after CONTEXT_TIMEOUT are failed (context creation
+ * failed, or never started) and the next task creates the context again.
+ * With a keep warm timeout, the last finished worker stays running for that idle period so the
+ * process, and its React context, survive until the next task. Must be used on the UI thread.
+ */
+final class HeadlessTaskQueue {
+  interface PendingTask {
+    void start(ReactContext reactContext, boolean coldStart);
+
+    void fail();
+  }
+
+  static final long CONTEXT_TIMEOUT = 60000;
+
+  private static final Handler sHandler = new Handler(Looper.getMainLooper());
+  private static final List<PendingTask> sPendingTasks = new ArrayList<>();
+  @Nullable
+  private static ReactInstanceManager sWaitingManager;
+  @Nullable
+  private static ReactInstanceManager.ReactInstanceEventListener sWaitingListener;
+  // instance manager whose context creation timed out, created again by the next task
+  @Nullable
+  private static ReactInstanceManager sTimedOutManager;
+  private static volatile long sKeepWarmTimeout = 0;
+  private static Runnable sHeldRelease;
+
+  private static final Runnable sReleaseRunnable = new Runnable() {
+    @Override
+    public void run() {
+      releaseHold();
+    }
+  };
+
+  private static final Runnable sContextTimeoutRunnable = new Runnable() {
+    @Override
+    public void run() {
+      sTimedOutManager = sWaitingManager;
+      stopWaiting();
+      for (PendingTask task : takePendingTasks()) {
+        task.fail();
+      }
+    }
+  };
+
+  private HeadlessTaskQueue() {
+  }
+
+  static void setKeepWarmTimeout(long keepWarmTimeout) {
+    sKeepWarmTimeout = Math.max(0, keepWarmTimeout);
+  }
+
+  static long getKeepWarmTimeout() {
+    return sKeepWarmTimeout;
+  }
+
+  static void enqueue(final ReactInstanceManager reactInstanceManager, PendingTask task) {
+    // the new task keeps the process alive from now on, the idle worker can complete
+    releaseHold();
+    ReactContext reactContext = reactInstanceManager.getCurrentReactContext();
+    if (reactContext != null) {
+      task.start(reactContext, false);
+      return;
+    }
+    sPendingTasks.add(task);
+    if (sWaitingManager == reactInstanceManager) {
+      return;
+    }
+    // a replaced instance manager will not create its context any more
+    stopWaiting();
+    sWaitingManager = reactInstanceManager;
+    sWaitingListener = new ReactInstanceManager.ReactInstanceEventListener() {
+      public void onReactContextInitialized(ReactContext reactContext) {
+        stopWaiting();
+        for (PendingTask pendingTask : takePendingTasks()) {
+          pendingTask.start(reactContext, true);
+        }
+      }
+    };
+    reactInstanceManager.addReactInstanceEventListener(sWaitingListener);
+    sHandler.postDelayed(sContextTimeoutRunnable, CONTEXT_TIMEOUT);
+    // an activity may already be creating the context, it must not be created twice
+    if (!reactInstanceManager.hasStartedCreatingInitialContext()) {
+      reactInstanceManager.createReactContextInBackground();
+    } else if (reactInstanceManager == sTimedOutManager) {
+      reactInstanceManager.recreateReactContextInBackground();
+    }
+    sTimedOutManager = null;
+  }
+
+  private static void stopWaiting() {
+    sHandler.removeCallbacks(sContextTimeoutRunnable);
+    if (sWaitingManager != null) {
+      sWaitingManager.removeReactInstanceEventListener(sWaitingListener);
+      sWaitingManager = null;
+      sWaitingListener = null;
+    }
+  }
+
+  private static List<PendingTask> takePendingTasks() {
+    List<PendingTask> tasks = new ArrayList<>(sPendingTasks);
+    sPendingTasks.clear();
+    return tasks;
+  }
+
+  /**
+   * Runs release once the keep warm timeout expires, or right away when keep warm is off.
+   * Only one worker is held at a time: holding a new one releases the previous one.
+   */
+  static void hold(Runnable release) {
+    releaseHold();
+    if (sKeepWarmTimeout <= 0) {
+      release.run();
+      return;
+    }
+    sHeldRelease = release;
+    sHandler.postDelayed(sReleaseRunnable, sKeepWarmTimeout);
+  }
+
+  static void cancelHold(Runnable release) {
+    if (sHeldRelease == release) {
+      sHandler.removeCallbacks(sReleaseRunnable);
+      sHeldRelease = null;
+    }
+  }
+
+  private static void releaseHold() {
+    sHandler.removeCallbacks(sReleaseRunnable);
+    Runnable release = sHeldRelease;
+    sHeldRelease = null;
+    if (release != null) {
+      release.run();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.mackentoch.beaconsandroid;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Estimates a 2D position from the distances to beacons of known coordinates (anchors).
+ * The circle equations are linearized against the closest anchor and solved by weighted least
+ * squares (weight 1 / d^2, near anchors are more reliable). While an anchor is off by more
+ * than the outlier threshold and more than three anchors remain, the worst one is dropped and
+ * the system solved again. Positions are smoothed with an EWMA and reported at a bounded rate.
+ */
+class PositionEstimator {
+  static final double DEFAULT_SMOOTHING_FACTOR = 0.5;
+  static final double DEFAULT_OUTLIER_THRESHOLD = 2.0;
+  static final long DEFAULT_EXPIRATION = 5000;
+  static final long DEFAULT_MIN_INTERVAL = 1000;
+  private static final int MIN_ANCHORS = 3;
+
+  interface PositionListener {
+    void onPosition(double x, double y, double accuracy, int anchorCount);
+  }
+
+  /**
+   * Anchor coordinates, in meters in any planar frame.
+   */
+  static final class Anchors {
+    private final BeaconIdentityIndex mIndex = new BeaconIdentityIndex();
+    private double[] mX = new double[16];
+    private double[] mY = new double[16];
+
+    void add(String uuid, int major, int minor, double x, double y) {
+      int i = mIndex.add(uuid, major, minor);
+      if (i >= mX.length) {
+        int capacity = Math.max(mX.length * 2, i + 1);
+        mX = Arrays.copyOf(mX, capacity);
+        mY = Arrays.copyOf(mY, capacity);
+      }
+      mX[i] = x;
+      mY[i] = y;
+    }
+
+    int size() {
+      return mIndex.size();
+    }
+  }
+
+  private final PositionListener mListener;
+  @Nullable
+  private Anchors mAnchors;
+  private double mSmoothingFactor = DEFAULT_SMOOTHING_FACTOR;
+  private double mOutlierThreshold = DEFAULT_OUTLIER_THRESHOLD;
+  private long mExpiration = DEFAULT_EXPIRATION;
+  private long mMinInterval = DEFAULT_MIN_INTERVAL;
+  private double[] mDistance = new double[0];
+  private long[] mLastSeen = new long[0];
+  private int[] mActive = new int[0];
+  private final double[] mSolution = new double[2];
+  private boolean mHasPosition;
+  private double mX;
+  private double mY;
+  private long mLastEmitTime;
+
+  PositionEstimator(PositionListener listener) {
+    this.mListener = listener;
+  }
+
+  synchronized boolean isEnabled() {
+    return mAnchors != null;
+  }
+
+  /**
+   * @param anchors null or empty to disable the estimator
+   */
+  synchronized void setConfig(@Nullable Anchors anchors, double smoothingFactor, double outlierThreshold, long expiration, double maxEmitRate) {
+    mAnchors = anchors != null && anchors.size() >= MIN_ANCHORS ? anchors : null;
+    int size = mAnchors != null ? mAnchors.size() : 0;
+    mDistance = new double[size];
+    mLastSeen = new long[size];
+    mActive = new int[size];
+    mSmoothingFactor = smoothingFactor > 0 && smoothingFactor <= 1 ? smoothingFactor : DEFAULT_SMOOTHING_FACTOR;
+    mOutlierThreshold = outlierThreshold > 0 ? outlierThreshold : DEFAULT_OUTLIER_THRESHOLD;
+    mExpiration = expiration > 0 ? expiration : DEFAULT_EXPIRATION;
+    mMinInterval = maxEmitRate > 0 ? (long) (1000 / maxEmitRate) : DEFAULT_MIN_INTERVAL;
+    mHasPosition = false;
+    mLastEmitTime = 0;
+  }
+
+  /**
+   * Forgets the anchor distances and the current position, without notifying.
+   */
+  synchronized void reset() {
+    Arrays.fill(mDistance, 0);
+    Arrays.fill(mLastSeen, 0);
+    mHasPosition = false;
+    mLastEmitTime = 0;
+  }
+
+  synchronized void update(Collection<Beacon> beacons, @Nullable BeaconTracker tracker, long now) {
+    Anchors anchors = mAnchors;
+    if (anchors == null) {
+      return;
+    }
+    for (Beacon beacon : beacons) {
+      int i = anchors.mIndex.lookUp(beacon);
+      if (i < 0) {
+        continue;
+      }
+      double distance = BeaconSerializer.getSafeDistance(beacon);
+      if (tracker != null) {
+        int slot = tracker.slotOf(beacon);
+        if (slot >= 0) {
+          distance = tracker.getSmoothedDistance(slot);
+        }
+      }
+      if (distance != 999.0) {
+        mDistance[i] = distance;
+        mLastSeen[i] = now;
+      }
+    }
+    int count = 0;
+    for (int i = 0; i < mDistance.length; i++) {
+      if (mLastSeen[i] != 0 && now - mLastSeen[i] <= mExpiration) {
+        mActive[count++] = i;
+      }
+    }
+    if (count < MIN_ANCHORS) {
+      return;
+    }
+    double[] solution = mSolution;
+    double accuracy;
+    while (true) {
+      if (!solve(anchors, count, solution)) {
+        return;
+      }
+      int worst = -1;
+      double worstResidual = 0;
+      double squaredResiduals = 0;
+      for (int k = 0; k < count; k++) {
+        int i = mActive[k];
+        double residual = Math.abs(Math.hypot(solution[0] - anchors.mX[i], solution[1] - anchors.mY[i]) - mDistance[i]);
+        squaredResiduals += residual * residual;
+        if (residual > worstResidual) {
+          worstResidual = residual;
+          worst = k;
+        }
+      }
+      accuracy = Math.sqrt(squaredResiduals / count);
+      if (worstResidual <= mOutlierThreshold || count <= MIN_ANCHORS) {
+        break;
+      }
+      mActive[worst] = mActive[--count];
+    }
+    if (mHasPosition) {
+      mX += mSmoothingFactor * (solution[0] - mX);
+      mY += mSmoothingFactor * (solution[1] - mY);
+    } else {
+      mX = solution[0];
+      mY = solution[1];
+      mHasPosition = true;
+    }
+    long time = SystemClock.elapsedRealtime();
+    if (time - mLastEmitTime >= mMinInterval) {
+      mLastEmitTime = time;
+      mListener.onPosition(mX, mY, accuracy, count);
+    }
+  }
+
+  /**
+   * Weighted least squares on the equations linearized against the closest active anchor.
+   * @return false when the anchors are (nearly) collinear
+   */
+  private boolean solve(Anchors anchors, int count, double[] solution) {
+    int ref = mActive[0];
+    for (int k = 1; k < count; k++) {
+      if (mDistance[mActive[k]] < mDistance[ref]) {
+        ref = mActive[k];
+      }
+    }
+    double xr = anchors.mX[ref];
+    double yr = anchors.mY[ref];
+    double dr = mDistance[ref];
+    double a11 = 0;
+    double a12 = 0;
+    double a22 = 0;
+    double b1 = 0;
+    double b2 = 0;
+    for (int k = 0; k < count; k++) {
+      int i = mActive[k];
+      if (i == ref) {
+        continue;
+      }
+      double ax = 2 * (anchors.mX[i] - xr);
+      double ay = 2 * (anchors.mY[i] - yr);
+      double b = dr * dr - mDistance[i] * mDistance[i]
+        + anchors.mX[i] * anchors.mX[i] - xr * xr
+        + anchors.mY[i] * anchors.mY[i] - yr * yr;
+      double w = 1 / Math.max(mDistance[i] * mDistance[i], 0.01);
+      a11 += w * ax * ax;
+      a12 += w * ax * ay;
+      a22 += w * ay * ay;
+      b1 += w * ax * b;
+      b2 += w * ay * b;
+    }
+    double determinant = a11 * a22 - a12 * a12;
+    if (Math.abs(determinant) < 1e-9) {
+      return false;
+    }
+    solution[0] = (a22 * b1 - a12 * b2) / determinant;
+    solution[1] = (a11 * b2 - a12 * b1) / determinant;
+    return true;
+  }
+}
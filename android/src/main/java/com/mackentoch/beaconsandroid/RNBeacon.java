@@ -1,10 +1,12 @@
 package com.mackentoch.beaconsandroid;
 
 import android.content.Context;
+import android.os.SystemClock;
 
 import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.ProcessLifecycleOwner;
 import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.WorkManager;
 import androidx.work.WorkRequest;
@@ -13,35 +15,168 @@ import org.altbeacon.beacon.BeaconManager;
 import org.altbeacon.beacon.MonitorNotifier;
 import org.altbeacon.beacon.Region;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public class RNBeacon {
+  private static final String BATCH_WORK_NAME = "RNBeaconTransitions";
+  // room left for the keys and the serialization headers of the input data
+  private static final int BATCH_DATA_BYTES = Data.MAX_DATA_BYTES - 1024;
+  // per transition serialization overhead: 3 strings and 2 ints
+  private static final int TRANSITION_OVERHEAD_BYTES = 3 * 3 + 2 * 4;
+
+  private final long mCoalescingWindow;
+  private final RegionDebouncer mRegionDebouncer;
+  private final Map<String, Transition> mPendingTransitions = new LinkedHashMap<>();
+  private final Map<String, String> mDeliveredStates = new HashMap<>();
+  private long mWindowStart = -1;
+  private int mWindowChunks;
+
+  private static final class Transition {
+    final Region region;
+    final String event;
+
+    Transition(Region region, String event) {
+      this.region = region;
+      this.event = event;
+    }
+  }
+
+  /**
+   * Settings of {@link #init(Context, Options)}, all off by default.
+   */
+  public static final class Options {
+    private long mCoalescingWindow;
+    private long mEnterDelay;
+    private long mExitDelay;
+    private boolean mRestoreState;
+
+    public Options setCoalescingWindow(long coalescingWindow) {
+      mCoalescingWindow = coalescingWindow;
+      return this;
+    }
+
+    public Options setEnterDelay(long enterDelay) {
+      mEnterDelay = enterDelay;
+      return this;
+    }
+
+    public Options setExitDelay(long exitDelay) {
+      mExitDelay = exitDelay;
+      return this;
+    }
+
+    /**
+     * Re-applies the monitored regions, parsers, rssi filter and scan periods last set from JS,
+     * so that monitoring resumes right after the process was killed, without waiting for JS.
+     */
+    public Options setRestoreState(boolean restoreState) {
+      mRestoreState = restoreState;
+      return this;
+    }
+  }
 
   public static void init(Context context) {
     new RNBeacon(context);
   }
 
+  public static void init(Context context, Options options) {
+    new RNBeacon(context, options);
+  }
+
+  /**
+   * Region transitions happening within coalescingWindow milliseconds are delivered to JS as a
+   * single batched headless task. A region going back to its last delivered state within the
+   * window (enter / exit flap) is not delivered at all.
+   */
+  public static void init(Context context, long coalescingWindow) {
+    new RNBeacon(context, coalescingWindow);
+  }
+
+  /**
+   * An enter is only delivered once the region has stayed entered for enterDelay milliseconds,
+   * an exit once it has stayed exited for exitDelay milliseconds. A region flapping back within
+   * the delay is not delivered and wakes nothing up.
+   */
+  public static void init(Context context, long coalescingWindow, long enterDelay, long exitDelay) {
+    new RNBeacon(context, coalescingWindow, enterDelay, exitDelay);
+  }
+
   public RNBeacon(Context context) {
+    this(context, 0);
+  }
+
+  public RNBeacon(Context context, long coalescingWindow) {
+    this(context, coalescingWindow, 0, 0);
+  }
+
+  public RNBeacon(Context context, long coalescingWindow, long enterDelay, long exitDelay) {
+    this(context, new Options().setCoalescingWindow(coalescingWindow).setEnterDelay(enterDelay).setExitDelay(exitDelay));
+  }
+
+  public RNBeacon(Context context, Options options) {
+    mCoalescingWindow = options.mCoalescingWindow;
+    mRegionDebouncer = new RegionDebouncer(new RegionDebouncer.TransitionListener() {
+      @Override
+      public void onTransition(Region region, boolean inside) {
+        RNBeacon.this.onTransition(context, region, inside ? "enter" : "exit");
+      }
+    });
+    mRegionDebouncer.setConfig(new RegionDebouncer.Config(
+      options.mEnterDelay > 0 || options.mExitDelay > 0,
+      options.mEnterDelay,
+      options.mExitDelay,
+      RegionDebouncer.RSSI_NONE,
+      RegionDebouncer.RSSI_NONE
+    ));
     MonitorNotifier mMonitorNotifier = new MonitorNotifier() {
       @Override
       public void didEnterRegion(Region region) {
-        enqueueTask(context, region, "enter");
+        if (mRegionDebouncer.isEnabled()) {
+          mRegionDebouncer.onEnter(region);
+        } else {
+          onTransition(context, region, "enter");
+        }
       }
 
       @Override
       public void didExitRegion(Region region) {
-        enqueueTask(context, region, "exit");
+        if (mRegionDebouncer.isEnabled()) {
+          mRegionDebouncer.onExit(region);
+        } else {
+          onTransition(context, region, "exit");
+        }
       }
 
       @Override
       public void didDetermineStateForRegion(int i, Region region) {
       }
     };
-    BeaconManager.getInstanceForApplication(context).addMonitorNotifier(mMonitorNotifier);
+    BeaconManager beaconManager = BeaconManager.getInstanceForApplication(context);
+    beaconManager.addMonitorNotifier(mMonitorNotifier);
+    if (options.mRestoreState) {
+      new BeaconStateStore(context).restore(beaconManager);
+    }
   }
 
   private boolean isAppOnBackground() {
     return !ProcessLifecycleOwner.get().getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED);
   }
 
+  private void onTransition(Context context, Region region, String state) {
+    TelemetryUploader.getInstance(context).recordTransition(region, state, System.currentTimeMillis());
+    if (mCoalescingWindow > 0) {
+      coalesceTask(context, region, state);
+    } else {
+      enqueueTask(context, region, state);
+    }
+  }
+
   private void enqueueTask(Context context, Region region, String state) {
     if (isAppOnBackground()) {
       Data inputData = getDataFromRegion(region, state);
@@ -52,7 +187,62 @@ public class RNBeacon {
       WorkManager
         .getInstance(context)
         .enqueue(headlessJsTaskWorkRequest);
+      BeaconsMetrics.recordHeadlessTaskEnqueued();
+    }
+  }
+
+  /**
+   * Transitions of a window are batched in as many works as needed to keep every input data
+   * under {@link Data#MAX_DATA_BYTES}, the batch handler is then called once per work.
+   */
+  private synchronized void coalesceTask(Context context, Region region, String state) {
+    long now = SystemClock.elapsedRealtime();
+    boolean windowElapsed = mWindowStart < 0 || now - mWindowStart >= mCoalescingWindow;
+    if (windowElapsed) {
+      for (Transition transition : mPendingTransitions.values()) {
+        mDeliveredStates.put(transition.region.getUniqueId(), transition.event);
+      }
+      mPendingTransitions.clear();
+      mWindowChunks = 0;
+    }
+    String regionId = region.getUniqueId();
+    if (!isAppOnBackground()) {
+      // delivered by the module events, only a later change of state needs a task
+      mDeliveredStates.put(regionId, state);
+      if (mPendingTransitions.remove(regionId) == null) {
+        return;
+      }
+    } else {
+      if (windowElapsed) {
+        mWindowStart = now;
+      }
+      if (state.equals(mDeliveredStates.get(regionId))) {
+        mPendingTransitions.remove(regionId);
+      } else {
+        mPendingTransitions.put(regionId, new Transition(region, state));
+      }
+    }
+
+    // unique works per window: the pending (not yet started) batches of the current window are
+    // replaced by the updated ones, without touching batches of a previous window that may still run
+    String workName = BATCH_WORK_NAME + "-" + mWindowStart + "-";
+    WorkManager workManager = WorkManager.getInstance(context);
+    List<Data> chunks = getDataFromTransitions();
+    for (int i = 0; i < chunks.size(); i++) {
+      OneTimeWorkRequest batchWorkRequest =
+        new OneTimeWorkRequest.Builder(BeaconBatchHeadlessWorker.class)
+          .setInputData(chunks.get(i))
+          .setInitialDelay(Math.max(0, mWindowStart + mCoalescingWindow - now), TimeUnit.MILLISECONDS)
+          .build();
+      workManager.enqueueUniqueWork(workName + i, ExistingWorkPolicy.REPLACE, batchWorkRequest);
+      if (i >= mWindowChunks) {
+        BeaconsMetrics.recordHeadlessTaskEnqueued();
+      }
+    }
+    for (int i = chunks.size(); i < mWindowChunks; i++) {
+      workManager.cancelUniqueWork(workName + i);
     }
+    mWindowChunks = chunks.size();
   }
 
   private Data getDataFromRegion(Region region, String event) {
@@ -60,8 +250,63 @@ public class RNBeacon {
       .putString("identifier", region.getUniqueId())
       .putString("uuid", region.getId1().toString())
       .putInt("major", region.getId2() != null ? region.getId2().toInt() : 0)
-      .putInt("minor", region.getId3() != null ? region.getId2().toInt() : 0)
+      .putInt("minor", region.getId3() != null ? region.getId3().toInt() : 0)
       .putString("event", event);
     return builder.build();
   }
+
+  private List<Data> getDataFromTransitions() {
+    List<Data> chunks = new ArrayList<>();
+    List<Transition> chunk = new ArrayList<>();
+    int chunkBytes = 0;
+    for (Transition transition : mPendingTransitions.values()) {
+      int bytes = getSerializedSize(transition);
+      if (!chunk.isEmpty() && chunkBytes + bytes > BATCH_DATA_BYTES) {
+        chunks.add(getDataFromTransitions(chunk));
+        chunk.clear();
+        chunkBytes = 0;
+      }
+      chunk.add(transition);
+      chunkBytes += bytes;
+    }
+    if (!chunk.isEmpty()) {
+      chunks.add(getDataFromTransitions(chunk));
+    }
+    return chunks;
+  }
+
+  private static int getSerializedSize(Transition transition) {
+    Region region = transition.region;
+    int bytes = TRANSITION_OVERHEAD_BYTES;
+    bytes += region.getUniqueId().getBytes(StandardCharsets.UTF_8).length;
+    bytes += region.getId1() != null ? region.getId1().toString().length() : 0;
+    bytes += transition.event.length();
+    return bytes;
+  }
+
+  private static Data getDataFromTransitions(List<Transition> transitions) {
+    int size = transitions.size();
+    String[] identifiers = new String[size];
+    String[] uuids = new String[size];
+    int[] majors = new int[size];
+    int[] minors = new int[size];
+    String[] events = new String[size];
+    int i = 0;
+    for (Transition transition : transitions) {
+      Region region = transition.region;
+      identifiers[i] = region.getUniqueId();
+      uuids[i] = region.getId1() != null ? region.getId1().toString() : "";
+      majors[i] = region.getId2() != null ? region.getId2().toInt() : 0;
+      minors[i] = region.getId3() != null ? region.getId3().toInt() : 0;
+      events[i] = transition.event;
+      i++;
+    }
+    return new Data.Builder()
+      .putStringArray(BeaconBatchHeadlessWorker.KEY_IDENTIFIERS, identifiers)
+      .putStringArray(BeaconBatchHeadlessWorker.KEY_UUIDS, uuids)
+      .putIntArray(BeaconBatchHeadlessWorker.KEY_MAJORS, majors)
+      .putIntArray(BeaconBatchHeadlessWorker.KEY_MINORS, minors)
+      .putStringArray(BeaconBatchHeadlessWorker.KEY_EVENTS, events)
+      .build();
+  }
 }
@@ -0,0 +1,99 @@
+package com.mackentoch.beaconsandroid;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces ranging results so that at most one batch is emitted per flush window.
+ * Only the latest frame of each region is kept: intermediate frames are dropped, never queued.
+ */
+class RangingBatchDispatcher {
+  static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+  interface FlushListener {
+    void onFlush(List<Frame> frames, int droppedFrames);
+  }
+
+  static final class Frame {
+    final Region region;
+    final Collection<Beacon> beacons;
+
+    Frame(Region region, Collection<Beacon> beacons) {
+      this.region = region;
+      this.beacons = beacons;
+    }
+  }
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, Frame> mPendingFrames = new LinkedHashMap<>();
+  private final FlushListener mListener;
+  private long mFlushInterval = DEFAULT_FLUSH_INTERVAL;
+  private long mLastFlushTime;
+  private boolean mFlushScheduled;
+  private int mDroppedFrames;
+
+  private final Runnable mFlushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  RangingBatchDispatcher(FlushListener listener) {
+    this.mListener = listener;
+  }
+
+  synchronized void setMaxEmitRate(double eventsPerSecond) {
+    mFlushInterval = eventsPerSecond > 0 ? (long) (1000 / eventsPerSecond) : DEFAULT_FLUSH_INTERVAL;
+  }
+
+  synchronized void offer(Collection<Beacon> beacons, Region region) {
+    Frame previous = mPendingFrames.put(region.getUniqueId(), new Frame(region, beacons));
+    if (previous != null) {
+      mDroppedFrames++;
+    }
+    if (!mFlushScheduled) {
+      mFlushScheduled = true;
+      long delay = Math.max(0, mLastFlushTime + mFlushInterval - SystemClock.elapsedRealtime());
+      mHandler.postDelayed(mFlushRunnable, delay);
+    }
+  }
+
+  synchronized void remove(String regionId) {
+    mPendingFrames.remove(regionId);
+  }
+
+  synchronized void clear() {
+    mHandler.removeCallbacks(mFlushRunnable);
+    mFlushScheduled = false;
+    mPendingFrames.clear();
+    mDroppedFrames = 0;
+  }
+
+  void flush() {
+    List<Frame> frames;
+    int droppedFrames;
+    synchronized (this) {
+      mFlushScheduled = false;
+      if (mPendingFrames.isEmpty()) {
+        return;
+      }
+      frames = new ArrayList<>(mPendingFrames.values());
+      droppedFrames = mDroppedFrames;
+      mPendingFrames.clear();
+      mDroppedFrames = 0;
+      mLastFlushTime = SystemClock.elapsedRealtime();
+    }
+    mListener.onFlush(frames, droppedFrames);
+  }
+}
@@ -0,0 +1,97 @@
+package com.mackentoch.beaconsandroid;
+
+import org.altbeacon.beacon.Beacon;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the last emitted state of every ranged region and computes what changed since then.
+ * A beacon is reported as changed only when its rssi or distance moved beyond the configured
+ * threshold, or when its proximity bucket changed.
+ */
+class RangingDeltaTracker {
+  static final int DEFAULT_RSSI_THRESHOLD = 3;
+  static final double DEFAULT_DISTANCE_THRESHOLD = 0.5;
+
+  static final class Delta {
+    final List<Beacon> added = new ArrayList<>();
+    final List<Beacon> changed = new ArrayList<>();
+    final List<Beacon> removed = new ArrayList<>();
+
+    boolean isEmpty() {
+      return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+  }
+
+  private static final class EmittedState {
+    Beacon beacon;
+    int rssi;
+    double distance;
+    String proximity;
+    boolean seen;
+  }
+
+  private final Map<String, Map<Beacon, EmittedState>> mRegions = new HashMap<>();
+  private int mRssiThreshold = DEFAULT_RSSI_THRESHOLD;
+  private double mDistanceThreshold = DEFAULT_DISTANCE_THRESHOLD;
+
+  synchronized void setThresholds(int rssiThreshold, double distanceThreshold) {
+    mRssiThreshold = rssiThreshold;
+    mDistanceThreshold = distanceThreshold;
+  }
+
+  synchronized Delta update(String regionId, Collection<Beacon> beacons) {
+    Map<Beacon, EmittedState> states = mRegions.get(regionId);
+    if (states == null) {
+      states = new HashMap<>();
+      mRegions.put(regionId, states);
+    }
+    Delta delta = new Delta();
+    for (Beacon beacon : beacons) {
+      double distance = BeaconSerializer.getSafeDistance(beacon);
+      String proximity = BeaconSerializer.getProximity(distance);
+      EmittedState state = states.get(beacon);
+      if (state == null) {
+        state = new EmittedState();
+        states.put(beacon, state);
+        delta.added.add(beacon);
+      } else if (Math.abs(beacon.getRssi() - state.rssi) >= mRssiThreshold
+        || Math.abs(distance - state.distance) >= mDistanceThreshold
+        || !proximity.equals(state.proximity)) {
+        delta.changed.add(beacon);
+      } else {
+        state.seen = true;
+        continue;
+      }
+      state.beacon = beacon;
+      state.rssi = beacon.getRssi();
+      state.distance = distance;
+      state.proximity = proximity;
+      state.seen = true;
+    }
+    Iterator<EmittedState> iterator = states.values().iterator();
+    while (iterator.hasNext()) {
+      EmittedState state = iterator.next();
+      if (!state.seen) {
+        delta.removed.add(state.beacon);
+        iterator.remove();
+      } else {
+        state.seen = false;
+      }
+    }
+    return delta;
+  }
+
+  synchronized void remove(String regionId) {
+    mRegions.remove(regionId);
+  }
+
+  synchronized void clear() {
+    mRegions.clear();
+  }
+}
@@ -0,0 +1,170 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.altbeacon.beacon.Region;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-width ring buffer of ranged beacon readings, read by JS synchronously instead of
+ * receiving one event per ranging cycle.
+ * Each record is RECORD_SIZE little endian bytes: timestamp (float64), region index (uint16),
+ * id1 index (uint16), major (uint16), minor (uint16), rssi (int16), flags (uint16, bit 0 set
+ * when major / minor are present) and distance (float32). Region ids and id1 values are
+ * stored once in tables that grow until the next configuration, or until one is full (uint16
+ * indexes): both tables are then reset, the records written before can no longer be resolved
+ * and are counted as dropped.
+ * Readers keep a cursor (total records written); records overwritten before they were read
+ * are counted as dropped. The tables version changes whenever a table does.
+ */
+class RangingRingBuffer {
+  static final int RECORD_SIZE = 24;
+  static final int DEFAULT_CAPACITY = 4096;
+  static final int FLAG_HAS_MAJOR_MINOR = 1;
+  static final int MAX_TABLE_SIZE = 0x10000;
+
+  static final class Chunk {
+    final String data;
+    final long cursor;
+    final long dropped;
+    final int tablesVersion;
+
+    Chunk(String data, long cursor, long dropped, int tablesVersion) {
+      this.data = data;
+      this.cursor = cursor;
+      this.dropped = dropped;
+      this.tablesVersion = tablesVersion;
+    }
+  }
+
+  private volatile boolean mEnabled = false;
+  @Nullable
+  private ByteBuffer mBuffer;
+  private int mCapacity = DEFAULT_CAPACITY;
+  private long mWriteCount;
+  // records written before the last tables reset refer to entries that are gone
+  private long mFirstReadable;
+  private int mTablesVersion;
+  private final Map<String, Integer> mRegionIndexes = new HashMap<>();
+  private final List<String> mRegions = new ArrayList<>();
+  private final Map<Identifier, Integer> mId1Indexes = new HashMap<>();
+  private final List<String> mId1s = new ArrayList<>();
+
+  boolean isEnabled() {
+    return mEnabled;
+  }
+
+  synchronized void setConfig(boolean enabled, int capacity) {
+    mCapacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+    mBuffer = enabled ? ByteBuffer.allocate(mCapacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN) : null;
+    mWriteCount = 0;
+    resetTables();
+    mEnabled = enabled;
+  }
+
+  synchronized void write(Collection<Beacon> beacons, Region region, @Nullable BeaconTracker tracker, long now) {
+    ByteBuffer buffer = mBuffer;
+    if (buffer == null) {
+      return;
+    }
+    String regionId = region.getUniqueId();
+    for (Beacon beacon : beacons) {
+      List<Identifier> identifiers = beacon.getIdentifiers();
+      if (identifiers.isEmpty()) {
+        continue;
+      }
+      Identifier id1 = identifiers.get(0);
+      if (isFull(mRegionIndexes, regionId) || isFull(mId1Indexes, id1)) {
+        resetTables();
+      }
+      int regionIndex = indexOf(mRegionIndexes, mRegions, regionId);
+      int id1Index = indexOf(mId1Indexes, mId1s, id1);
+      boolean hasMajorMinor = identifiers.size() > 2 && identifiers.get(1).getByteCount() <= 2 && identifiers.get(2).getByteCount() <= 2;
+      double rssi = beacon.getRssi();
+      double distance = BeaconSerializer.getSafeDistance(beacon);
+      int slot = tracker != null ? tracker.slotOf(beacon) : -1;
+      if (slot >= 0) {
+        rssi = tracker.getSmoothedRssi(slot);
+        distance = tracker.getSmoothedDistance(slot);
+      }
+      int position = (int) (mWriteCount % mCapacity) * RECORD_SIZE;
+      buffer.putDouble(position, now);
+      buffer.putShort(position + 8, (short) regionIndex);
+      buffer.putShort(position + 10, (short) id1Index);
+      buffer.putShort(position + 12, (short) (hasMajorMinor ? identifiers.get(1).toInt() : 0));
+      buffer.putShort(position + 14, (short) (hasMajorMinor ? identifiers.get(2).toInt() : 0));
+      buffer.putShort(position + 16, (short) Math.round(rssi));
+      buffer.putShort(position + 18, (short) (hasMajorMinor ? FLAG_HAS_MAJOR_MINOR : 0));
+      buffer.putFloat(position + 20, (float) distance);
+      mWriteCount++;
+    }
+  }
+
+  /**
+   * @param cursor cursor returned by the previous read, 0 the first time
+   * @param maxRecords max number of records to return
+   * @return the records written since the cursor as a latin-1 string (one char per byte)
+   */
+  synchronized Chunk read(long cursor, int maxRecords) {
+    long oldest = Math.max(mFirstReadable, mWriteCount - mCapacity);
+    long dropped = 0;
+    if (cursor < oldest || cursor > mWriteCount) {
+      dropped = cursor < oldest ? oldest - cursor : 0;
+      cursor = Math.max(cursor, oldest);
+      cursor = Math.min(cursor, mWriteCount);
+    }
+    int count = mBuffer != null ? (int) Math.min(mWriteCount - cursor, maxRecords > 0 ? maxRecords : mCapacity) : 0;
+    byte[] bytes = new byte[count * RECORD_SIZE];
+    for (int i = 0; i < count; i++) {
+      int position = (int) ((cursor + i) % mCapacity) * RECORD_SIZE;
+      System.arraycopy(mBuffer.array(), position, bytes, i * RECORD_SIZE, RECORD_SIZE);
+    }
+    return new Chunk(new String(bytes, StandardCharsets.ISO_8859_1), cursor + count, dropped, getTablesVersion());
+  }
+
+  synchronized List<String> getRegions() {
+    return new ArrayList<>(mRegions);
+  }
+
+  synchronized List<String> getId1s() {
+    return new ArrayList<>(mId1s);
+  }
+
+  private int getTablesVersion() {
+    return mTablesVersion;
+  }
+
+  private void resetTables() {
+    mRegionIndexes.clear();
+    mRegions.clear();
+    mId1Indexes.clear();
+    mId1s.clear();
+    mFirstReadable = mWriteCount;
+    mTablesVersion++;
+  }
+
+  private static <K> boolean isFull(Map<K, Integer> indexes, K key) {
+    return indexes.size() >= MAX_TABLE_SIZE && !indexes.containsKey(key);
+  }
+
+  private <K> int indexOf(Map<K, Integer> indexes, List<String> table, K key) {
+    Integer index = indexes.get(key);
+    if (index == null) {
+      index = table.size();
+      indexes.put(key, index);
+      table.add(key.toString());
+      mTablesVersion++;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,118 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest ranged beacons of every ranged region, for on demand queries instead of a stream.
+ * Each ranging cycle replaces the entry of its region by a new immutable one (copy-on-write),
+ * so readers never lock nor see a partially updated region.
+ */
+class RangingSnapshot {
+  static final class Entry {
+    final Region region;
+    final Collection<Beacon> beacons;
+    final long timestamp;
+
+    Entry(Region region, Collection<Beacon> beacons, long timestamp) {
+      this.region = region;
+      this.beacons = beacons;
+      this.timestamp = timestamp;
+    }
+  }
+
+  /**
+   * Beacon filter of a query, null / -1 / RSSI_NONE fields match anything.
+   */
+  static final class Query {
+    static final int RSSI_NONE = Integer.MIN_VALUE;
+
+    @Nullable
+    final String regionId;
+    @Nullable
+    final Identifier id1;
+    final int major;
+    final int minor;
+    final int minRssi;
+    final long maxAge;
+
+    Query(@Nullable String regionId, @Nullable String uuid, int major, int minor, int minRssi, long maxAge) {
+      this.regionId = regionId;
+      this.id1 = uuid != null ? Identifier.parse(uuid) : null;
+      this.major = major;
+      this.minor = minor;
+      this.minRssi = minRssi;
+      this.maxAge = maxAge;
+    }
+
+    boolean matches(Beacon beacon) {
+      if (beacon.getRssi() < minRssi) {
+        return false;
+      }
+      List<Identifier> identifiers = beacon.getIdentifiers();
+      if (id1 != null && (identifiers.isEmpty() || !id1.equals(identifiers.get(0)))) {
+        return false;
+      }
+      if (major == -1 && minor == -1) {
+        return true;
+      }
+      if (identifiers.size() < 3 || identifiers.get(1).getByteCount() > 2 || identifiers.get(2).getByteCount() > 2) {
+        return false;
+      }
+      return (major == -1 || identifiers.get(1).toInt() == major) && (minor == -1 || identifiers.get(2).toInt() == minor);
+    }
+  }
+
+  private final ConcurrentHashMap<String, Entry> mEntries = new ConcurrentHashMap<>();
+
+  /**
+   * @param beacons not modified afterwards by the caller
+   */
+  void update(Region region, Collection<Beacon> beacons, long now) {
+    mEntries.put(region.getUniqueId(), new Entry(region, Collections.unmodifiableCollection(beacons), now));
+  }
+
+  void remove(String regionId) {
+    mEntries.remove(regionId);
+  }
+
+  void clear() {
+    mEntries.clear();
+  }
+
+  /**
+   * @return one entry per matching region, with only the matching beacons
+   */
+  List<Entry> query(Query query, long now) {
+    Collection<Entry> entries;
+    if (query.regionId != null) {
+      Entry entry = mEntries.get(query.regionId);
+      entries = entry != null ? Collections.singletonList(entry) : Collections.<Entry>emptyList();
+    } else {
+      entries = mEntries.values();
+    }
+    List<Entry> results = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      if (query.maxAge > 0 && now - entry.timestamp > query.maxAge) {
+        continue;
+      }
+      List<Beacon> beacons = new ArrayList<>();
+      for (Beacon beacon : entry.beacons) {
+        if (query.matches(beacon)) {
+          beacons.add(beacon);
+        }
+      }
+      results.add(new Entry(entry.region, beacons, entry.timestamp));
+    }
+    return results;
+  }
+}
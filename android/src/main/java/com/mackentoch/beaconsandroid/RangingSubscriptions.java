@@ -0,0 +1,102 @@
+package com.mackentoch.beaconsandroid;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranging subscriptions registered from JS, each with its own region, identifier filter,
+ * rssi floor, top K and max emit rate.
+ * Tracking and the other per cycle work run once per ranging cycle; every subscription then
+ * only filters the shared beacons and is skipped for a region until its min interval elapsed
+ * since it last emitted for that region.
+ * The subscription list is copied on write, the scan path reads it without locking.
+ */
+class RangingSubscriptions {
+  interface SubscriptionListener {
+    void onSubscriptionBeacons(String subscriptionId, List<Beacon> beacons, Region region, @Nullable BeaconTracker tracker);
+  }
+
+  static final class Subscription {
+    final String id;
+    final RangingSnapshot.Query query;
+    final BeaconRanker ranker;
+    final long minInterval;
+    // by region id, only touched by dispatch
+    private final Map<String, Long> mLastEmitTimes = new HashMap<>();
+
+    /**
+     * @param maxEmitRate max events per second, 0 for every ranging cycle
+     */
+    Subscription(String id, RangingSnapshot.Query query, BeaconRanker ranker, double maxEmitRate) {
+      this.id = id;
+      this.query = query;
+      this.ranker = ranker;
+      this.minInterval = maxEmitRate > 0 ? (long) (1000 / maxEmitRate) : 0;
+    }
+  }
+
+  private final SubscriptionListener mListener;
+  private volatile List<Subscription> mSubscriptions = new ArrayList<>();
+  private final Map<String, Subscription> mById = new LinkedHashMap<>();
+
+  RangingSubscriptions(SubscriptionListener listener) {
+    this.mListener = listener;
+  }
+
+  boolean isEmpty() {
+    return mSubscriptions.isEmpty();
+  }
+
+  /**
+   * Replaces the subscription with the same id, if any.
+   */
+  synchronized void put(Subscription subscription) {
+    mById.put(subscription.id, subscription);
+    mSubscriptions = new ArrayList<>(mById.values());
+  }
+
+  synchronized boolean remove(String subscriptionId) {
+    boolean removed = mById.remove(subscriptionId) != null;
+    mSubscriptions = new ArrayList<>(mById.values());
+    return removed;
+  }
+
+  synchronized void clear() {
+    mById.clear();
+    mSubscriptions = new ArrayList<>();
+  }
+
+  void dispatch(Collection<Beacon> beacons, Region region, @Nullable BeaconTracker tracker) {
+    long time = SystemClock.elapsedRealtime();
+    for (Subscription subscription : mSubscriptions) {
+      if (subscription.query.regionId != null && !subscription.query.regionId.equals(region.getUniqueId())) {
+        continue;
+      }
+      if (subscription.minInterval > 0) {
+        Long lastEmitTime = subscription.mLastEmitTimes.get(region.getUniqueId());
+        if (lastEmitTime != null && time - lastEmitTime < subscription.minInterval) {
+          continue;
+        }
+        subscription.mLastEmitTimes.put(region.getUniqueId(), time);
+      }
+      List<Beacon> matching = new ArrayList<>(beacons.size());
+      for (Beacon beacon : beacons) {
+        if (subscription.query.matches(beacon)) {
+          matching.add(beacon);
+        }
+      }
+      mListener.onSubscriptionBeacons(subscription.id, subscription.ranker.selectTop(matching, tracker), region, tracker);
+    }
+  }
+}
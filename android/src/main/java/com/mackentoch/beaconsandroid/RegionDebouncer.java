@@ -0,0 +1,182 @@
+package com.mackentoch.beaconsandroid;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.altbeacon.beacon.Region;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per region enter / exit state machine applied before transitions are reported.
+ * A transition is only reported once the raw state has held for enterDelay (entering) or
+ * exitDelay (exiting); a region flapping back within that delay reports nothing.
+ * When rssi samples are fed from ranging, an outside region needs the strongest beacon at
+ * enterRssi or above to enter, and an inside region only exits below exitRssi (hysteresis).
+ */
+class RegionDebouncer {
+  static final int RSSI_NONE = Integer.MIN_VALUE;
+
+  interface TransitionListener {
+    void onTransition(Region region, boolean inside);
+  }
+
+  static final class Config {
+    final boolean enabled;
+    final long enterDelay;
+    final long exitDelay;
+    final int enterRssi;
+    final int exitRssi;
+
+    Config(boolean enabled, long enterDelay, long exitDelay, int enterRssi, int exitRssi) {
+      this.enabled = enabled;
+      this.enterDelay = Math.max(0, enterDelay);
+      this.exitDelay = Math.max(0, exitDelay);
+      this.enterRssi = enterRssi;
+      // exiting above the enter threshold would defeat the hysteresis, an unset threshold is not clamped
+      this.exitRssi = exitRssi != RSSI_NONE && enterRssi != RSSI_NONE ? Math.min(exitRssi, enterRssi) : exitRssi;
+    }
+  }
+
+  private final class State implements Runnable {
+    final Region region;
+    boolean rawInside;
+    boolean reportedInside;
+    boolean hasRssi;
+    int rssi;
+    boolean pending;
+    boolean pendingInside;
+
+    State(Region region) {
+      this.region = region;
+    }
+
+    @Override
+    public void run() {
+      confirm(this);
+    }
+  }
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, State> mStates = new HashMap<>();
+  private final TransitionListener mListener;
+  private volatile Config mConfig = new Config(false, 0, 0, RSSI_NONE, RSSI_NONE);
+
+  RegionDebouncer(TransitionListener listener) {
+    this.mListener = listener;
+  }
+
+  boolean isEnabled() {
+    return mConfig.enabled;
+  }
+
+  synchronized void setConfig(Config config) {
+    mConfig = config;
+    if (!config.enabled) {
+      clear();
+    }
+  }
+
+  synchronized void onEnter(Region region) {
+    State state = getState(region);
+    state.rawInside = true;
+    evaluate(state);
+  }
+
+  synchronized void onExit(Region region) {
+    State state = getState(region);
+    state.rawInside = false;
+    state.hasRssi = false;
+    evaluate(state);
+  }
+
+  /**
+   * Feeds the strongest rssi seen in the region during a ranging cycle.
+   * Cycles without beacons keep the previous sample, exits are left to monitoring.
+   */
+  synchronized void onRssi(Region region, int rssi) {
+    State state = mStates.get(region.getUniqueId());
+    if (state == null || !state.rawInside) {
+      return;
+    }
+    state.hasRssi = true;
+    state.rssi = rssi;
+    evaluate(state);
+  }
+
+  synchronized void remove(String regionId) {
+    State state = mStates.remove(regionId);
+    if (state != null) {
+      mHandler.removeCallbacks(state);
+    }
+  }
+
+  synchronized void clear() {
+    for (State state : mStates.values()) {
+      mHandler.removeCallbacks(state);
+    }
+    mStates.clear();
+  }
+
+  private State getState(Region region) {
+    State state = mStates.get(region.getUniqueId());
+    if (state == null) {
+      state = new State(region);
+      mStates.put(region.getUniqueId(), state);
+    }
+    return state;
+  }
+
+  private boolean desiredInside(State state, Config config) {
+    if (!state.rawInside) {
+      return false;
+    }
+    if (!state.hasRssi) {
+      return true;
+    }
+    int threshold = state.reportedInside ? config.exitRssi : config.enterRssi;
+    return threshold == RSSI_NONE || state.rssi >= threshold;
+  }
+
+  private void evaluate(State state) {
+    Config config = mConfig;
+    boolean desired = desiredInside(state, config);
+    if (desired == state.reportedInside) {
+      if (state.pending) {
+        state.pending = false;
+        mHandler.removeCallbacks(state);
+      }
+      return;
+    }
+    if (state.pending && state.pendingInside == desired) {
+      return;
+    }
+    long delay = desired ? config.enterDelay : config.exitDelay;
+    if (delay == 0) {
+      state.pending = false;
+      mHandler.removeCallbacks(state);
+      report(state, desired);
+      return;
+    }
+    state.pending = true;
+    state.pendingInside = desired;
+    mHandler.removeCallbacks(state);
+    mHandler.postDelayed(state, delay);
+  }
+
+  private synchronized void confirm(State state) {
+    if (!state.pending || mStates.get(state.region.getUniqueId()) != state) {
+      return;
+    }
+    state.pending = false;
+    if (desiredInside(state, mConfig) == state.pendingInside) {
+      report(state, state.pendingInside);
+    }
+  }
+
+  private void report(State state, boolean inside) {
+    state.reportedInside = inside;
+    mListener.onTransition(state.region, inside);
+  }
+}
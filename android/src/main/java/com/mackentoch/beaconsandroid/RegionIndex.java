@@ -0,0 +1,137 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Regions registered through the module, indexed by uniqueId and by uuid / major / minor.
+ * Registering a region already known by its identifiers reuses the parsed Identifier objects,
+ * and stop / state requests look their Region up instead of parsing strings again.
+ */
+class RegionIndex {
+  private static final class Entry {
+    final Region region;
+    final String key;
+    boolean monitored;
+    boolean ranged;
+
+    Entry(Region region, String key) {
+      this.region = region;
+      this.key = key;
+    }
+  }
+
+  private final Map<String, Entry> mById = new HashMap<>();
+  private final Map<String, Region> mByKey = new HashMap<>();
+
+  private static String keyOf(@Nullable String uuid, String major, String minor) {
+    return (uuid == null ? "" : uuid.toLowerCase(Locale.US)) + "|" + major + "|" + minor;
+  }
+
+  private static String keyOf(Region region) {
+    return keyOf(
+      region.getId1() != null ? region.getId1().toString() : null,
+      region.getId2() != null ? region.getId2().toString() : "",
+      region.getId3() != null ? region.getId3().toString() : ""
+    );
+  }
+
+  /**
+   * Returns the indexed Region matching regionId and identifiers, or builds (and does not index
+   * yet) a new one, reusing the Identifier objects of any region sharing the same identifiers.
+   * major / minor are "" when not set, as in {@link BeaconsAndroidModule#createRegion}.
+   */
+  synchronized Region obtain(String regionId, @Nullable String uuid, String minor, String major) {
+    String key = keyOf(uuid, major, minor);
+    Entry entry = mById.get(regionId);
+    if (entry != null && entry.key.equals(key)) {
+      return entry.region;
+    }
+    Region sameIdentifiers = mByKey.get(key);
+    if (sameIdentifiers != null) {
+      return new Region(regionId, sameIdentifiers.getId1(), sameIdentifiers.getId2(), sameIdentifiers.getId3());
+    }
+    return BeaconsAndroidModule.createRegion(regionId, uuid, minor, major);
+  }
+
+  synchronized void putMonitored(Region region) {
+    put(region).monitored = true;
+  }
+
+  synchronized void putRanged(Region region) {
+    put(region).ranged = true;
+  }
+
+  @Nullable
+  synchronized Region get(String regionId) {
+    Entry entry = mById.get(regionId);
+    return entry != null ? entry.region : null;
+  }
+
+  synchronized void removeMonitored(String regionId) {
+    Entry entry = mById.get(regionId);
+    if (entry != null) {
+      entry.monitored = false;
+      removeIfUnused(regionId, entry);
+    }
+  }
+
+  synchronized void removeRanged(String regionId) {
+    Entry entry = mById.get(regionId);
+    if (entry != null) {
+      entry.ranged = false;
+      removeIfUnused(regionId, entry);
+    }
+  }
+
+  synchronized List<Region> getMonitored() {
+    List<Region> regions = new ArrayList<>();
+    for (Entry entry : mById.values()) {
+      if (entry.monitored) {
+        regions.add(entry.region);
+      }
+    }
+    return regions;
+  }
+
+  synchronized void clear() {
+    mById.clear();
+    mByKey.clear();
+  }
+
+  private Entry put(Region region) {
+    String key = keyOf(region);
+    Entry entry = mById.get(region.getUniqueId());
+    if (entry == null || entry.region != region) {
+      Entry replaced = entry;
+      entry = new Entry(region, key);
+      if (replaced != null) {
+        entry.monitored = replaced.monitored;
+        entry.ranged = replaced.ranged;
+        if (mByKey.get(replaced.key) == replaced.region) {
+          mByKey.remove(replaced.key);
+        }
+      }
+      mById.put(region.getUniqueId(), entry);
+    }
+    mByKey.put(key, region);
+    return entry;
+  }
+
+  private void removeIfUnused(String regionId, Entry entry) {
+    if (entry.monitored || entry.ranged) {
+      return;
+    }
+    mById.remove(regionId);
+    if (mByKey.get(entry.key) == entry.region) {
+      mByKey.remove(entry.key);
+    }
+  }
+}
@@ -0,0 +1,353 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.MonitorNotifier;
+import org.altbeacon.beacon.RangeNotifier;
+import org.altbeacon.beacon.Region;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the range and monitor notifiers with synthetic or recorded advertisement traces,
+ * without any bluetooth hardware, and measures how the module copes.
+ * Each cycle is handed to the range notifier, then a marker is queued on the same executor
+ * that consumes the ranging work: it runs once the cycle was processed and emitted, which
+ * gives the callback to emit latency. The region is entered with the first cycle and exited
+ * after the last one, or when recorded cycles are further apart than the exit period.
+ * The consumer reports the cycles it actually processed with {@link #onCycleProcessed}, the
+ * throughput only counts those, not the cycles coalesced or dropped on the way.
+ * Only plain java and AltBeacon types are used, so the simulator also runs on a plain JVM
+ * against stub notifiers.
+ */
+class ScanSimulator {
+  static final int DEFAULT_BEACON_COUNT = 100;
+  static final int DEFAULT_CYCLES = 100;
+  static final long DEFAULT_CYCLE_INTERVAL = 1100;
+  static final String SIMULATED_UUID = "00000000-0000-4000-8000-00000000beac";
+  private static final int MAX_LATENCY_SAMPLES = 100000;
+  // well below the consumer's task capacity, cycles fed meanwhile are not sampled
+  private static final int MAX_PENDING_MARKERS = 256;
+  private static final long DRAIN_TIMEOUT = 30000;
+  // AltBeacon's default region exit period
+  static final long EXIT_PERIOD = 10000;
+  private static final int RSSI_MIN = -100;
+  private static final int RSSI_MAX = -30;
+
+  static final class Config {
+    final String regionId;
+    final int beaconCount;
+    final int cycles;
+    final long cycleInterval;
+    final double speedup;
+    final double churn;
+    final double rssiNoise;
+    final long seed;
+
+    /**
+     * @param speedup simulated time / real time, 0 to run cycles back to back
+     * @param churn fraction of the beacons replaced by new identities each cycle
+     * @param rssiNoise standard deviation of the rssi noise, in dBm
+     */
+    Config(String regionId, int beaconCount, int cycles, long cycleInterval, double speedup, double churn, double rssiNoise, long seed) {
+      this.regionId = regionId;
+      this.beaconCount = beaconCount > 0 ? beaconCount : DEFAULT_BEACON_COUNT;
+      this.cycles = cycles > 0 ? cycles : DEFAULT_CYCLES;
+      this.cycleInterval = cycleInterval >= 0 ? cycleInterval : DEFAULT_CYCLE_INTERVAL;
+      this.speedup = Math.max(0, speedup);
+      this.churn = Math.min(1, Math.max(0, churn));
+      this.rssiNoise = Math.max(0, rssiNoise);
+      this.seed = seed;
+    }
+  }
+
+  static final class Report {
+    boolean cancelled;
+    // fed to the range notifier
+    int cycles;
+    long beacons;
+    // reported by the consumer, the others were coalesced or dropped
+    int processedCycles;
+    long processedBeacons;
+    long elapsedNanos;
+    long latencyP50Nanos;
+    long latencyP95Nanos;
+    long latencyP99Nanos;
+    long latencyMaxNanos;
+    int latencySamples;
+    long heapStartBytes;
+    long heapPeakBytes;
+    long heapEndBytes;
+
+    int getCoalescedCycles() {
+      return cycles - processedCycles;
+    }
+
+    double getCyclesPerSecond() {
+      return elapsedNanos > 0 ? processedCycles * 1e9 / elapsedNanos : 0;
+    }
+
+    double getBeaconsPerSecond() {
+      return elapsedNanos > 0 ? processedBeacons * 1e9 / elapsedNanos : 0;
+    }
+
+    long getHeapGrowthBytes() {
+      return heapEndBytes - heapStartBytes;
+    }
+  }
+
+  interface CompletionListener {
+    void onComplete(Report report);
+  }
+
+  private final RangeNotifier mRangeNotifier;
+  private final MonitorNotifier mMonitorNotifier;
+  private final Executor mConsumer;
+  private final Config mConfig;
+  @Nullable
+  private final List<List<Beacon>> mTrace;
+  @Nullable
+  private final long[] mTraceDelays;
+  private final long[] mLatencies;
+  private final AtomicInteger mLatencyCount = new AtomicInteger();
+  private final AtomicInteger mPendingMarkers = new AtomicInteger();
+  private final AtomicInteger mProcessedCycles = new AtomicInteger();
+  private final AtomicLong mProcessedBeacons = new AtomicLong();
+  private volatile Thread mThread;
+  private volatile boolean mCancelled;
+
+  /**
+   * Synthetic trace: beaconCount beacons of {@link #SIMULATED_UUID} with a stable base rssi,
+   * gaussian noise on every cycle and a fraction replaced by new identities each cycle.
+   *
+   * @param consumer the executor the range notifier hands its work to
+   */
+  ScanSimulator(RangeNotifier rangeNotifier, MonitorNotifier monitorNotifier, Executor consumer, Config config) {
+    this(rangeNotifier, monitorNotifier, consumer, config, null, null);
+  }
+
+  private ScanSimulator(RangeNotifier rangeNotifier, MonitorNotifier monitorNotifier, Executor consumer, Config config,
+                        @Nullable List<List<Beacon>> trace, @Nullable long[] traceDelays) {
+    this.mRangeNotifier = rangeNotifier;
+    this.mMonitorNotifier = monitorNotifier;
+    this.mConsumer = consumer;
+    this.mConfig = config;
+    this.mTrace = trace;
+    this.mTraceDelays = traceDelays;
+    int cycles = trace != null ? trace.size() : config.cycles;
+    this.mLatencies = new long[Math.min(cycles, MAX_LATENCY_SAMPLES)];
+  }
+
+  /**
+   * Recorded trace: sightings sharing a timestamp form one cycle, replayed with their original
+   * spacing divided by the speedup. Beacon count, cycles, churn and noise are not used.
+   */
+  static ScanSimulator replay(RangeNotifier rangeNotifier, MonitorNotifier monitorNotifier, Executor consumer,
+                              Config config, List<SightingRecorder.Sighting> sightings) {
+    List<List<Beacon>> trace = new ArrayList<>();
+    long[] delays = new long[sightings.size()];
+    List<Beacon> cycle = null;
+    long cycleTimestamp = 0;
+    for (SightingRecorder.Sighting sighting : sightings) {
+      if (cycle == null || sighting.timestamp != cycleTimestamp) {
+        delays[trace.size()] = cycle == null ? 0 : Math.max(0, sighting.timestamp - cycleTimestamp);
+        cycle = new ArrayList<>();
+        trace.add(cycle);
+        cycleTimestamp = sighting.timestamp;
+      }
+      Beacon.Builder builder = new Beacon.Builder()
+        .setId1(sighting.getId1String())
+        .setRssi(sighting.rssi)
+        .setRunningAverageRssi(sighting.rssi)
+        .setBluetoothAddress(toBluetoothAddress(sighting.major, sighting.minor));
+      if (sighting.major != -1) {
+        builder.setId2(String.valueOf(sighting.major)).setId3(String.valueOf(sighting.minor));
+      }
+      cycle.add(builder.build());
+    }
+    return new ScanSimulator(rangeNotifier, monitorNotifier, consumer, config, trace, Arrays.copyOf(delays, trace.size()));
+  }
+
+  String getRegionId() {
+    return mConfig.regionId;
+  }
+
+  /**
+   * Called by the consumer for each cycle it processed.
+   */
+  void onCycleProcessed(int beaconCount) {
+    mProcessedCycles.incrementAndGet();
+    mProcessedBeacons.addAndGet(beaconCount);
+  }
+
+  void start(final CompletionListener listener) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        listener.onComplete(ScanSimulator.this.run());
+      }
+    }, "BeaconsScanSimulator");
+    mThread = thread;
+    thread.start();
+  }
+
+  void cancel() {
+    mCancelled = true;
+    Thread thread = mThread;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  Report run() {
+    Report report = new Report();
+    Region region = new Region(mConfig.regionId, null, null, null);
+    Random random = new Random(mConfig.seed);
+    int[] minors = new int[mConfig.beaconCount];
+    int[] baseRssi = new int[mConfig.beaconCount];
+    int nextMinor = 0;
+    for (int i = 0; i < minors.length; i++) {
+      minors[i] = nextMinor++;
+      baseRssi[i] = RSSI_MIN + random.nextInt(RSSI_MAX - RSSI_MIN);
+    }
+    int cycles = mTrace != null ? mTrace.size() : mConfig.cycles;
+    Runtime runtime = Runtime.getRuntime();
+    report.heapStartBytes = usedHeap(runtime, true);
+    report.heapPeakBytes = report.heapStartBytes;
+
+    long startNanos = System.nanoTime();
+    boolean inside = false;
+    try {
+      for (int c = 0; c < cycles && !mCancelled; c++) {
+        long delay = mTrace != null ? mTraceDelays[c] : (c == 0 ? 0 : mConfig.cycleInterval);
+        if (inside && delay > EXIT_PERIOD) {
+          sleep(EXIT_PERIOD);
+          delay -= EXIT_PERIOD;
+          inside = false;
+          setInside(region, false);
+        }
+        sleep(delay);
+        List<Beacon> beacons;
+        if (mTrace != null) {
+          beacons = mTrace.get(c);
+        } else {
+          beacons = new ArrayList<>(minors.length);
+          for (int i = 0; i < minors.length; i++) {
+            if (c > 0 && random.nextDouble() < mConfig.churn) {
+              minors[i] = nextMinor++;
+              baseRssi[i] = RSSI_MIN + random.nextInt(RSSI_MAX - RSSI_MIN);
+            }
+            int rssi = (int) Math.round(baseRssi[i] + random.nextGaussian() * mConfig.rssiNoise);
+            rssi = Math.min(RSSI_MAX, Math.max(RSSI_MIN, rssi));
+            int major = (minors[i] >>> 16) & 0xffff;
+            int minor = minors[i] & 0xffff;
+            beacons.add(new Beacon.Builder()
+              .setId1(SIMULATED_UUID)
+              .setId2(String.valueOf(major))
+              .setId3(String.valueOf(minor))
+              .setRssi(rssi)
+              .setRunningAverageRssi(rssi)
+              .setTxPower(-59)
+              .setBluetoothAddress(toBluetoothAddress(major, minor))
+              .build());
+          }
+        }
+        if (!inside && !beacons.isEmpty()) {
+          inside = true;
+          setInside(region, true);
+        }
+        final long cycleStartNanos = System.nanoTime();
+        mRangeNotifier.didRangeBeaconsInRegion(beacons, region);
+        if (mPendingMarkers.incrementAndGet() <= MAX_PENDING_MARKERS) {
+          mConsumer.execute(new Runnable() {
+            @Override
+            public void run() {
+              mPendingMarkers.decrementAndGet();
+              int i = mLatencyCount.getAndIncrement();
+              if (i < mLatencies.length) {
+                mLatencies[i] = System.nanoTime() - cycleStartNanos;
+              }
+            }
+          });
+        } else {
+          mPendingMarkers.decrementAndGet();
+        }
+        report.cycles++;
+        report.beacons += beacons.size();
+        report.heapPeakBytes = Math.max(report.heapPeakBytes, usedHeap(runtime, false));
+      }
+    } catch (InterruptedException e) {
+      mCancelled = true;
+    }
+    if (inside) {
+      setInside(region, false);
+    }
+
+    // the consumer runs in order: once this marker ran, every cycle before it was emitted
+    final CountDownLatch drained = new CountDownLatch(1);
+    mConsumer.execute(new Runnable() {
+      @Override
+      public void run() {
+        drained.countDown();
+      }
+    });
+    try {
+      drained.await(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      mCancelled = true;
+    }
+    report.elapsedNanos = System.nanoTime() - startNanos;
+    report.cancelled = mCancelled;
+    report.heapEndBytes = usedHeap(runtime, true);
+    report.processedCycles = mProcessedCycles.get();
+    report.processedBeacons = mProcessedBeacons.get();
+
+    int samples = Math.min(mLatencyCount.get(), mLatencies.length);
+    long[] latencies = Arrays.copyOf(mLatencies, samples);
+    Arrays.sort(latencies);
+    report.latencySamples = samples;
+    if (samples > 0) {
+      report.latencyP50Nanos = latencies[(samples - 1) / 2];
+      report.latencyP95Nanos = latencies[(int) ((samples - 1) * 0.95)];
+      report.latencyP99Nanos = latencies[(int) ((samples - 1) * 0.99)];
+      report.latencyMaxNanos = latencies[samples - 1];
+    }
+    return report;
+  }
+
+  private void sleep(long delay) throws InterruptedException {
+    if (delay > 0 && mConfig.speedup > 0) {
+      Thread.sleep((long) (delay / mConfig.speedup));
+    }
+  }
+
+  private void setInside(Region region, boolean inside) {
+    if (inside) {
+      mMonitorNotifier.didEnterRegion(region);
+    } else {
+      mMonitorNotifier.didExitRegion(region);
+    }
+    mMonitorNotifier.didDetermineStateForRegion(inside ? MonitorNotifier.INSIDE : MonitorNotifier.OUTSIDE, region);
+  }
+
+  private static long usedHeap(Runtime runtime, boolean collect) {
+    if (collect) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static String toBluetoothAddress(int major, int minor) {
+    return String.format(Locale.US, "02:00:%02X:%02X:%02X:%02X", (major >> 8) & 0xff, major & 0xff, (minor >> 8) & 0xff, minor & 0xff);
+  }
+}
@@ -0,0 +1,303 @@
+package com.mackentoch.beaconsandroid;
+
+import android.util.Log;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Append-only, rotating log of beacon sightings.
+ * Records are written by a dedicated thread so that ranging callbacks never wait for disk.
+ * Each record is: timestamp (long), identifier byte count (byte) + bytes, major (int),
+ * minor (int), rssi (short) and distance (float). Once the current file exceeds the max file
+ * size it is rotated, and the oldest file is deleted when there are more than max files.
+ * Files are numbered in sequence and never renamed, so a page cursor (file sequence times
+ * CURSOR_FILE_FACTOR plus byte position) stays valid across rotations; a cursor into a deleted
+ * file resumes at the oldest file left.
+ */
+class SightingRecorder {
+  private static final String LOG_TAG = "SightingRecorder";
+  private static final String FILE_PREFIX = "sightings-";
+  private static final String FILE_SUFFIX = ".bin";
+  static final long DEFAULT_MAX_FILE_SIZE = 512 * 1024;
+  static final int DEFAULT_MAX_FILES = 4;
+  // byte positions stay far below 2^32, cursors below 2^53 remain exact as JS numbers
+  static final long CURSOR_FILE_FACTOR = 1L << 32;
+  private static final int RECORD_FIXED_SIZE = 8 + 1 + 4 + 4 + 2 + 4;
+
+  static final class Sighting {
+    final long timestamp;
+    final byte[] id1;
+    final int major;
+    final int minor;
+    final int rssi;
+    final float distance;
+
+    Sighting(long timestamp, byte[] id1, int major, int minor, int rssi, float distance) {
+      this.timestamp = timestamp;
+      this.id1 = id1;
+      this.major = major;
+      this.minor = minor;
+      this.rssi = rssi;
+      this.distance = distance;
+    }
+
+    String getId1String() {
+      return Identifier.fromBytes(id1, 0, id1.length, false).toString();
+    }
+  }
+
+  interface PageCallback {
+    void onPage(List<Sighting> sightings, long nextCursor);
+
+    void onError(Exception e);
+  }
+
+  private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+  private final File mDirectory;
+  private volatile long mMaxFileSize = DEFAULT_MAX_FILE_SIZE;
+  private volatile int mMaxFiles = DEFAULT_MAX_FILES;
+  private DataOutputStream mOutput;
+  private long mCurrentSize;
+  // sequence of the file written to, -1 until the directory was listed
+  private long mCurrentSequence = -1;
+
+  SightingRecorder(File directory) {
+    this.mDirectory = directory;
+  }
+
+  void setLimits(long maxFileSize, int maxFiles) {
+    mMaxFileSize = maxFileSize > 0 ? maxFileSize : DEFAULT_MAX_FILE_SIZE;
+    mMaxFiles = maxFiles > 0 ? maxFiles : DEFAULT_MAX_FILES;
+  }
+
+  void record(Collection<Beacon> beacons, final long timestamp) {
+    if (beacons.isEmpty()) {
+      return;
+    }
+    final List<Sighting> sightings = new ArrayList<>(beacons.size());
+    for (Beacon beacon : beacons) {
+      boolean hasMajorMinor = beacon.getIdentifiers().size() > 2;
+      sightings.add(new Sighting(
+        timestamp,
+        beacon.getId1().toByteArray(),
+        hasMajorMinor ? beacon.getId2().toInt() : -1,
+        hasMajorMinor ? beacon.getId3().toInt() : -1,
+        beacon.getRssi(),
+        (float) BeaconSerializer.getSafeDistance(beacon)
+      ));
+    }
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          write(sightings);
+        } catch (IOException e) {
+          Log.e(LOG_TAG, "record, error: ", e);
+          closeOutput();
+        }
+      }
+    });
+  }
+
+  /**
+   * @param cursor 0 for the oldest sighting, then the next cursor of the previous page
+   */
+  void readPage(final long cursor, final int limit, final PageCallback callback) {
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (mOutput != null) {
+            mOutput.flush();
+          }
+          List<Sighting> page = new ArrayList<>();
+          long nextCursor = cursor;
+          long cursorSequence = cursor / CURSOR_FILE_FACTOR;
+          for (long sequence : listSequences()) {
+            if (sequence < cursorSequence) {
+              continue;
+            }
+            if (page.size() >= limit) {
+              break;
+            }
+            long position = sequence == cursorSequence ? cursor % CURSOR_FILE_FACTOR : 0;
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(getFile(sequence))));
+            try {
+              skipFully(input, position);
+              while (page.size() < limit) {
+                Sighting sighting = read(input);
+                page.add(sighting);
+                position += RECORD_FIXED_SIZE + sighting.id1.length;
+              }
+            } catch (EOFException e) {
+              // end of this file, continue with the next one
+            } finally {
+              input.close();
+            }
+            nextCursor = sequence * CURSOR_FILE_FACTOR + position;
+          }
+          callback.onPage(page, nextCursor);
+        } catch (IOException e) {
+          callback.onError(e);
+        }
+      }
+    });
+  }
+
+  void clear() {
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        closeOutput();
+        long sequence = getCurrentSequence();
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+          for (File file : files) {
+            file.delete();
+          }
+        }
+        // cursors of the cleared files must not point into the next ones
+        mCurrentSequence = sequence + 1;
+      }
+    });
+  }
+
+  /**
+   * Closes the current file once the pending records are written, nothing is recorded afterwards.
+   */
+  void close() {
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        closeOutput();
+      }
+    });
+    mExecutor.shutdown();
+  }
+
+  private void execute(Runnable task) {
+    try {
+      mExecutor.execute(task);
+    } catch (RejectedExecutionException e) {
+      // closed, a ranging cycle still in flight is not recorded
+    }
+  }
+
+  private void write(List<Sighting> sightings) throws IOException {
+    if (mOutput == null) {
+      if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+        throw new IOException("Could not create " + mDirectory);
+      }
+      File file = getFile(getCurrentSequence());
+      mCurrentSize = file.length();
+      mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+    for (Sighting sighting : sightings) {
+      mOutput.writeLong(sighting.timestamp);
+      mOutput.writeByte(sighting.id1.length);
+      mOutput.write(sighting.id1);
+      mOutput.writeInt(sighting.major);
+      mOutput.writeInt(sighting.minor);
+      mOutput.writeShort(sighting.rssi);
+      mOutput.writeFloat(sighting.distance);
+      mCurrentSize += RECORD_FIXED_SIZE + sighting.id1.length;
+    }
+    mOutput.flush();
+    if (mCurrentSize >= mMaxFileSize) {
+      rotate();
+    }
+  }
+
+  private Sighting read(DataInputStream input) throws IOException {
+    long timestamp = input.readLong();
+    byte[] id1 = new byte[input.readUnsignedByte()];
+    input.readFully(id1);
+    return new Sighting(timestamp, id1, input.readInt(), input.readInt(), input.readShort(), input.readFloat());
+  }
+
+  private void rotate() {
+    closeOutput();
+    mCurrentSequence = getCurrentSequence() + 1;
+    // the next file, created on the next write, counts as one of the max files
+    long[] sequences = listSequences();
+    for (int i = 0; i < sequences.length - (mMaxFiles - 1); i++) {
+      getFile(sequences[i]).delete();
+    }
+  }
+
+  private void closeOutput() {
+    if (mOutput != null) {
+      try {
+        mOutput.close();
+      } catch (IOException e) {
+        Log.e(LOG_TAG, "closeOutput, error: ", e);
+      }
+      mOutput = null;
+    }
+  }
+
+  private long getCurrentSequence() {
+    if (mCurrentSequence < 0) {
+      long[] sequences = listSequences();
+      mCurrentSequence = sequences.length > 0 ? sequences[sequences.length - 1] : 0;
+    }
+    return mCurrentSequence;
+  }
+
+  private File getFile(long sequence) {
+    return new File(mDirectory, FILE_PREFIX + sequence + FILE_SUFFIX);
+  }
+
+  /**
+   * @return sequences of the existing files, oldest first
+   */
+  private long[] listSequences() {
+    File[] files = mDirectory.listFiles();
+    if (files == null) {
+      return new long[0];
+    }
+    long[] sequences = new long[files.length];
+    int count = 0;
+    for (File file : files) {
+      String name = file.getName();
+      if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+        try {
+          sequences[count++] = Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+          count--;
+        }
+      }
+    }
+    sequences = Arrays.copyOf(sequences, count);
+    Arrays.sort(sequences);
+    return sequences;
+  }
+
+  private static void skipFully(DataInputStream input, long count) throws IOException {
+    while (count > 0) {
+      long skipped = input.skip(count);
+      if (skipped <= 0) {
+        throw new EOFException();
+      }
+      count -= skipped;
+    }
+  }
+}
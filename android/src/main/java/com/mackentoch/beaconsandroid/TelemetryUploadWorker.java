@@ -0,0 +1,112 @@
+package com.mackentoch.beaconsandroid;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * POSTs the batches spooled by {@link TelemetryUploader}, oldest first, as gzipped JSON arrays.
+ * A batch is deleted once accepted (2xx) or rejected for good (4xx other than 408 / 429);
+ * on any other response or network error the work is retried later with backoff.
+ * The spool is listed again once it was emptied, the work is only done when no batch is left.
+ */
+public class TelemetryUploadWorker extends Worker {
+  private static final String LOG_TAG = "TelemetryUploadWorker";
+  private static final int TIMEOUT = 15000;
+
+  public TelemetryUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+    super(context, params);
+  }
+
+  @NonNull
+  @Override
+  public Result doWork() {
+    TelemetryUploader.Config config = TelemetryUploader.getInstance(getApplicationContext()).getConfig();
+    if (config.endpoint == null) {
+      return Result.success();
+    }
+    if (config.headersMissing) {
+      Log.w(LOG_TAG, "doWork, headers are not persisted and were not set in this process, retrying");
+      return Result.retry();
+    }
+    File directory = TelemetryUploader.getSpoolDirectory(getApplicationContext());
+    File[] batches;
+    while ((batches = TelemetryUploader.listBatches(directory)).length > 0) {
+      for (File batch : batches) {
+        if (isStopped()) {
+          return Result.retry();
+        }
+        int status;
+        try {
+          status = post(config, batch);
+        } catch (IOException e) {
+          Log.w(LOG_TAG, "doWork, upload failed, retrying: " + e.getMessage());
+          BeaconsMetrics.recordTelemetryUploadFailed();
+          return Result.retry();
+        }
+        if (status >= 200 && status < 300) {
+          BeaconsMetrics.recordTelemetryBatchUploaded();
+        } else if (status >= 400 && status < 500 && status != 408 && status != 429) {
+          Log.e(LOG_TAG, "doWork, batch rejected with status " + status + ", dropping " + batch.getName());
+          BeaconsMetrics.recordTelemetryBatchDropped();
+        } else {
+          Log.w(LOG_TAG, "doWork, upload failed with status " + status + ", retrying");
+          BeaconsMetrics.recordTelemetryUploadFailed();
+          return Result.retry();
+        }
+        // a batch that stays in the spool would be listed (and uploaded) again forever
+        if (!batch.delete()) {
+          Log.e(LOG_TAG, "doWork, could not delete " + batch.getName());
+          return Result.failure();
+        }
+      }
+    }
+    return Result.success();
+  }
+
+  static int post(TelemetryUploader.Config config, File batch) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(config.endpoint).openConnection();
+    try {
+      connection.setRequestMethod("POST");
+      connection.setConnectTimeout(TIMEOUT);
+      connection.setReadTimeout(TIMEOUT);
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(batch.length());
+      connection.setRequestProperty("Content-Type", "application/json");
+      connection.setRequestProperty("Content-Encoding", "gzip");
+      for (Map.Entry<String, String> header : config.headers.entrySet()) {
+        connection.setRequestProperty(header.getKey(), header.getValue());
+      }
+      InputStream input = new FileInputStream(batch);
+      try {
+        OutputStream output = connection.getOutputStream();
+        try {
+          byte[] buffer = new byte[8192];
+          int read;
+          while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+          }
+        } finally {
+          output.close();
+        }
+      } finally {
+        input.close();
+      }
+      return connection.getResponseCode();
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
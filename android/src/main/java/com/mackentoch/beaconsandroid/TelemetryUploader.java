@@ -0,0 +1,345 @@
+package com.mackentoch.beaconsandroid;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.WorkRequest;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.Identifier;
+import org.altbeacon.beacon.Region;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Uploads beacon sightings and region transitions to an HTTP endpoint without JS.
+ * Records are appended as JSON to an in-memory batch; once the batch reaches max batch size
+ * records or max batch age milliseconds, it is gzipped into a file of the spool directory and
+ * {@link TelemetryUploadWorker} is scheduled to POST the spooled batches, oldest first, with
+ * WorkManager retries and backoff. The spool is capped at max queue size bytes by deleting the
+ * oldest batches. The configuration is persisted so the worker and RNBeacon see it after the
+ * process was killed.
+ * Headers (typically credentials) are only kept in memory unless persist headers is set, in
+ * which case they are stored in plain text in the app private shared preferences. Without
+ * them, an upload started in a new process is retried until the configuration is set again.
+ */
+class TelemetryUploader {
+  private static final String LOG_TAG = "TelemetryUploader";
+  private static final String PREFERENCES_NAME = "RNBeaconTelemetry";
+  private static final String KEY_CONFIG = "config";
+  private static final String SPOOL_DIRECTORY = "beacon-telemetry";
+  private static final String FILE_PREFIX = "batch-";
+  static final String FILE_SUFFIX = ".json.gz";
+  private static final String UPLOAD_WORK_NAME = "RNBeaconTelemetryUpload";
+  static final int DEFAULT_MAX_BATCH_SIZE = 500;
+  static final long DEFAULT_MAX_BATCH_AGE = 60000;
+  static final long DEFAULT_MAX_QUEUE_SIZE = 5 * 1024 * 1024;
+
+  static final class Config {
+    final boolean enabled;
+    @Nullable
+    final String endpoint;
+    final Map<String, String> headers;
+    final boolean persistHeaders;
+    // headers were set but not persisted, and this configuration was loaded in a new process
+    final boolean headersMissing;
+    final int maxBatchSize;
+    final long maxBatchAge;
+    final long maxQueueSize;
+
+    Config(boolean enabled, @Nullable String endpoint, Map<String, String> headers, boolean persistHeaders,
+           int maxBatchSize, long maxBatchAge, long maxQueueSize) {
+      this(enabled, endpoint, headers, persistHeaders, false, maxBatchSize, maxBatchAge, maxQueueSize);
+    }
+
+    private Config(boolean enabled, @Nullable String endpoint, Map<String, String> headers, boolean persistHeaders,
+                   boolean headersMissing, int maxBatchSize, long maxBatchAge, long maxQueueSize) {
+      this.enabled = enabled && endpoint != null;
+      this.endpoint = endpoint;
+      this.headers = headers;
+      this.persistHeaders = persistHeaders;
+      this.headersMissing = headersMissing;
+      this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+      this.maxBatchAge = maxBatchAge > 0 ? maxBatchAge : DEFAULT_MAX_BATCH_AGE;
+      this.maxQueueSize = maxQueueSize > 0 ? maxQueueSize : DEFAULT_MAX_QUEUE_SIZE;
+    }
+  }
+
+  private static TelemetryUploader sInstance;
+
+  private final Context mContext;
+  private final SharedPreferences mPreferences;
+  private final File mDirectory;
+  private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor();
+  private volatile Config mConfig;
+  private final StringBuilder mBatch = new StringBuilder();
+  private int mBatchSize;
+  @Nullable
+  private ScheduledFuture<?> mAgeFlush;
+  private final Map<String, String> mTransitionStates = new HashMap<>();
+  private int mFileSequence;
+
+  static synchronized TelemetryUploader getInstance(Context context) {
+    if (sInstance == null) {
+      sInstance = new TelemetryUploader(context.getApplicationContext());
+    }
+    return sInstance;
+  }
+
+  private TelemetryUploader(Context context) {
+    this.mContext = context;
+    this.mPreferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    this.mDirectory = getSpoolDirectory(context);
+    this.mConfig = loadConfig(mPreferences);
+    // batches left by a previous process, e.g. spooled while its last upload was finishing
+    mExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (listBatches(mDirectory).length > 0) {
+          scheduleUpload();
+        }
+      }
+    });
+  }
+
+  boolean isEnabled() {
+    return mConfig.enabled;
+  }
+
+  Config getConfig() {
+    return mConfig;
+  }
+
+  /**
+   * Pending records are spooled with the previous configuration before it is replaced.
+   */
+  void setConfig(Config config) {
+    flush();
+    mConfig = config;
+    saveConfig(mPreferences, config);
+  }
+
+  void recordSightings(Collection<Beacon> beacons, Region region, long now) {
+    if (!mConfig.enabled || beacons.isEmpty()) {
+      return;
+    }
+    StringBuilder records = new StringBuilder(beacons.size() * 128);
+    for (Beacon beacon : beacons) {
+      List<Identifier> identifiers = beacon.getIdentifiers();
+      records.append("{\"type\":\"sighting\",\"timestamp\":").append(now)
+        .append(",\"identifier\":").append(JSONObject.quote(region.getUniqueId()))
+        .append(",\"uuid\":").append(JSONObject.quote(identifiers.isEmpty() ? "" : identifiers.get(0).toString()));
+      if (identifiers.size() > 2 && identifiers.get(1).getByteCount() <= 2 && identifiers.get(2).getByteCount() <= 2) {
+        records.append(",\"major\":").append(identifiers.get(1).toInt())
+          .append(",\"minor\":").append(identifiers.get(2).toInt());
+      }
+      records.append(",\"rssi\":").append(beacon.getRssi())
+        .append(",\"distance\":").append(BeaconSerializer.getSafeDistance(beacon))
+        .append("},");
+    }
+    append(records, beacons.size());
+  }
+
+  /**
+   * Transitions are recorded once per change of state of a region, even when reported by both
+   * the module and RNBeacon.
+   */
+  void recordTransition(Region region, String event, long now) {
+    if (!mConfig.enabled) {
+      return;
+    }
+    synchronized (mTransitionStates) {
+      if (event.equals(mTransitionStates.put(region.getUniqueId(), event))) {
+        return;
+      }
+    }
+    append(new StringBuilder()
+      .append("{\"type\":\"").append(event).append("\",\"timestamp\":").append(now)
+      .append(",\"identifier\":").append(JSONObject.quote(region.getUniqueId()))
+      .append("},"), 1);
+  }
+
+  /**
+   * Spools the pending records now and schedules an upload.
+   */
+  synchronized void flush() {
+    if (mAgeFlush != null) {
+      mAgeFlush.cancel(false);
+      mAgeFlush = null;
+    }
+    if (mBatchSize == 0) {
+      return;
+    }
+    // records all end with a comma, the last one is replaced by the closing bracket
+    mBatch.setCharAt(mBatch.length() - 1, ']');
+    final String batch = "[" + mBatch;
+    mBatch.setLength(0);
+    mBatchSize = 0;
+    final long maxQueueSize = mConfig.maxQueueSize;
+    mExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          spool(batch, maxQueueSize);
+          scheduleUpload();
+        } catch (IOException e) {
+          Log.e(LOG_TAG, "flush, error: ", e);
+        }
+      }
+    });
+  }
+
+  private synchronized void append(CharSequence records, int count) {
+    mBatch.append(records);
+    mBatchSize += count;
+    if (mBatchSize >= mConfig.maxBatchSize) {
+      flush();
+    } else if (mAgeFlush == null) {
+      mAgeFlush = mExecutor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, mConfig.maxBatchAge, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void spool(String batch, long maxQueueSize) throws IOException {
+    if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+      throw new IOException("Could not create " + mDirectory);
+    }
+    // names sort in spooling order
+    String name = String.format(Locale.US, "%s%d-%03d%s", FILE_PREFIX, System.currentTimeMillis(), mFileSequence++ % 1000, FILE_SUFFIX);
+    File partial = new File(mDirectory, name + ".tmp");
+    OutputStream output = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(partial)));
+    try {
+      output.write(batch.getBytes(StandardCharsets.UTF_8));
+    } finally {
+      output.close();
+    }
+    // the worker only picks up complete batches
+    if (!partial.renameTo(new File(mDirectory, name))) {
+      partial.delete();
+      throw new IOException("Could not spool " + name);
+    }
+    BeaconsMetrics.recordTelemetryBatchSpooled();
+    File[] batches = listBatches(mDirectory);
+    long queueSize = 0;
+    for (File file : batches) {
+      queueSize += file.length();
+    }
+    for (int i = 0; i < batches.length - 1 && queueSize > maxQueueSize; i++) {
+      queueSize -= batches[i].length();
+      if (batches[i].delete()) {
+        BeaconsMetrics.recordTelemetryBatchDropped();
+      }
+    }
+  }
+
+  private void scheduleUpload() {
+    OneTimeWorkRequest uploadWorkRequest =
+      new OneTimeWorkRequest.Builder(TelemetryUploadWorker.class)
+        .setConstraints(new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+        .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, WorkRequest.MIN_BACKOFF_MILLIS, TimeUnit.MILLISECONDS)
+        .build();
+    // an enqueued or running upload is kept: the worker lists the spool again before it finishes,
+    // which picks up the batches spooled meanwhile
+    WorkManager.getInstance(mContext).enqueueUniqueWork(UPLOAD_WORK_NAME, ExistingWorkPolicy.KEEP, uploadWorkRequest);
+  }
+
+  static File getSpoolDirectory(Context context) {
+    return new File(context.getFilesDir(), SPOOL_DIRECTORY);
+  }
+
+  /**
+   * @return complete batches, oldest first
+   */
+  static File[] listBatches(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return new File[0];
+    }
+    int count = 0;
+    for (File file : files) {
+      if (file.getName().endsWith(FILE_SUFFIX)) {
+        files[count++] = file;
+      }
+    }
+    File[] batches = Arrays.copyOf(files, count);
+    Arrays.sort(batches);
+    return batches;
+  }
+
+  private static Config loadConfig(SharedPreferences preferences) {
+    Map<String, String> headers = new HashMap<>();
+    String config = preferences.getString(KEY_CONFIG, null);
+    if (config != null) {
+      try {
+        JSONObject json = new JSONObject(config);
+        JSONObject h = json.getJSONObject("headers");
+        Iterator<String> keys = h.keys();
+        while (keys.hasNext()) {
+          String key = keys.next();
+          headers.put(key, h.getString(key));
+        }
+        return new Config(
+          json.getBoolean("enabled"),
+          json.isNull("endpoint") ? null : json.getString("endpoint"),
+          headers,
+          json.optBoolean("persistHeaders"),
+          json.optBoolean("headersOmitted"),
+          json.getInt("maxBatchSize"),
+          json.getLong("maxBatchAge"),
+          json.getLong("maxQueueSize")
+        );
+      } catch (JSONException e) {
+        Log.e(LOG_TAG, "loadConfig, ignoring invalid config: ", e);
+      }
+    }
+    return new Config(false, null, headers, false, 0, 0, 0);
+  }
+
+  private static void saveConfig(SharedPreferences preferences, Config config) {
+    try {
+      JSONObject json = new JSONObject();
+      json.put("enabled", config.enabled);
+      json.put("endpoint", config.endpoint != null ? config.endpoint : JSONObject.NULL);
+      json.put("headers", new JSONObject(config.persistHeaders ? config.headers : new HashMap<String, String>()));
+      json.put("persistHeaders", config.persistHeaders);
+      json.put("headersOmitted", !config.persistHeaders && !config.headers.isEmpty());
+      json.put("maxBatchSize", config.maxBatchSize);
+      json.put("maxBatchAge", config.maxBatchAge);
+      json.put("maxQueueSize", config.maxQueueSize);
+      preferences.edit().putString(KEY_CONFIG, json.toString()).apply();
+    } catch (JSONException e) {
+      Log.e(LOG_TAG, "saveConfig, error: ", e);
+    }
+  }
+}
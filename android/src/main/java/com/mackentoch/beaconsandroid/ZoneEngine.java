@@ -0,0 +1,225 @@
+package com.mackentoch.beaconsandroid;
+
+import androidx.annotation.Nullable;
+
+import org.altbeacon.beacon.Beacon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Aggregates ranged beacons into zones (groups of beacon identities) and reports zone
+ * enter / exit and nearest zone changes instead of raw beacons.
+ * Each member keeps its last rssi and sighting time in primitive arrays; a zone only uses
+ * members seen within the expiration. A zone is inside when its rule holds:
+ * strongest or average member rssi at or above the threshold, or at least minBeacons
+ * members above it. The nearest zone is the inside zone with the best score.
+ */
+class ZoneEngine {
+  static final int RULE_STRONGEST = 0;
+  static final int RULE_AVERAGE = 1;
+  static final int RULE_ANY_ABOVE = 2;
+  static final int RSSI_NONE = Integer.MIN_VALUE;
+  static final long DEFAULT_EXPIRATION = 5000;
+
+  interface ZoneListener {
+    void onZoneEnter(String zoneId, double score);
+
+    void onZoneExit(String zoneId);
+
+    void onNearestZoneChanged(@Nullable String zoneId, double score);
+  }
+
+  /**
+   * Zone definitions; members shared by several zones are stored once.
+   */
+  static final class Zones {
+    private final List<Zone> mZones = new ArrayList<>();
+    private final BeaconIdentityIndex mMembers = new BeaconIdentityIndex();
+    private long mExpiration = DEFAULT_EXPIRATION;
+
+    void setExpiration(long expiration) {
+      mExpiration = expiration > 0 ? expiration : DEFAULT_EXPIRATION;
+    }
+
+    /**
+     * @return the member index to pass to {@link #addZone}
+     */
+    int addMember(String uuid, int major, int minor) {
+      return mMembers.add(uuid, major, minor);
+    }
+
+    void addZone(String zoneId, int rule, int rssiThreshold, int minBeacons, int[] members) {
+      mZones.add(new Zone(zoneId, rule, rssiThreshold, Math.max(1, minBeacons), members));
+    }
+
+    boolean isEmpty() {
+      return mZones.isEmpty();
+    }
+  }
+
+  private static final class Zone {
+    final String id;
+    final int rule;
+    final int rssiThreshold;
+    final int minBeacons;
+    final int[] members;
+    boolean inside;
+    double score;
+
+    Zone(String id, int rule, int rssiThreshold, int minBeacons, int[] members) {
+      this.id = id;
+      this.rule = rule;
+      this.rssiThreshold = rssiThreshold;
+      this.minBeacons = minBeacons;
+      this.members = members;
+    }
+  }
+
+  private final ZoneListener mListener;
+  @Nullable
+  private Zones mZones;
+  private int[] mRssi = new int[0];
+  private long[] mLastSeen = new long[0];
+  @Nullable
+  private Zone mNearest;
+
+  ZoneEngine(ZoneListener listener) {
+    this.mListener = listener;
+  }
+
+  synchronized boolean isEnabled() {
+    return mZones != null;
+  }
+
+  /**
+   * Occupied zones that are not part of the new zones are exited, and the nearest zone changes
+   * to none if it was one of them. Zones kept (same id) keep their state, their members are
+   * evaluated again from the next ranging cycle.
+   *
+   * @param zones null or empty to disable the engine
+   */
+  synchronized void setZones(@Nullable Zones zones) {
+    Zones previous = mZones;
+    mZones = zones != null && !zones.isEmpty() ? zones : null;
+    int memberCount = mZones != null ? mZones.mMembers.size() : 0;
+    mRssi = new int[memberCount];
+    mLastSeen = new long[memberCount];
+    Zone previousNearest = mNearest;
+    mNearest = null;
+    if (previous == null) {
+      return;
+    }
+    for (Zone zone : previous.mZones) {
+      if (!zone.inside) {
+        continue;
+      }
+      Zone kept = mZones != null ? findZone(mZones, zone.id) : null;
+      if (kept != null) {
+        kept.inside = true;
+        kept.score = zone.score;
+        if (zone == previousNearest) {
+          mNearest = kept;
+        }
+      } else {
+        mListener.onZoneExit(zone.id);
+      }
+    }
+    if (previousNearest != null && mNearest == null) {
+      mListener.onNearestZoneChanged(null, 0);
+    }
+  }
+
+  /**
+   * Forgets the member sightings and leaves every zone, without notifying.
+   */
+  synchronized void reset() {
+    Arrays.fill(mRssi, 0);
+    Arrays.fill(mLastSeen, 0);
+    mNearest = null;
+    if (mZones != null) {
+      for (Zone zone : mZones.mZones) {
+        zone.inside = false;
+        zone.score = 0;
+      }
+    }
+  }
+
+  @Nullable
+  private static Zone findZone(Zones zones, String zoneId) {
+    for (Zone zone : zones.mZones) {
+      if (zone.id.equals(zoneId)) {
+        return zone;
+      }
+    }
+    return null;
+  }
+
+  synchronized void update(Collection<Beacon> beacons, long now) {
+    Zones zones = mZones;
+    if (zones == null) {
+      return;
+    }
+    for (Beacon beacon : beacons) {
+      int m = zones.mMembers.lookUp(beacon);
+      if (m >= 0) {
+        mRssi[m] = beacon.getRssi();
+        mLastSeen[m] = now;
+      }
+    }
+    Zone nearest = null;
+    for (Zone zone : zones.mZones) {
+      boolean inside = evaluate(zone, now, zones.mExpiration);
+      if (inside != zone.inside) {
+        zone.inside = inside;
+        if (inside) {
+          mListener.onZoneEnter(zone.id, zone.score);
+        } else {
+          mListener.onZoneExit(zone.id);
+        }
+      }
+      if (inside && (nearest == null || zone.score > nearest.score)) {
+        nearest = zone;
+      }
+    }
+    if (nearest != mNearest) {
+      mNearest = nearest;
+      mListener.onNearestZoneChanged(nearest != null ? nearest.id : null, nearest != null ? nearest.score : 0);
+    }
+  }
+
+  private boolean evaluate(Zone zone, long now, long expiration) {
+    int count = 0;
+    int above = 0;
+    long sum = 0;
+    int max = Integer.MIN_VALUE;
+    for (int m : zone.members) {
+      if (mLastSeen[m] == 0 || now - mLastSeen[m] > expiration) {
+        continue;
+      }
+      int rssi = mRssi[m];
+      count++;
+      sum += rssi;
+      max = Math.max(max, rssi);
+      if (zone.rssiThreshold == RSSI_NONE || rssi >= zone.rssiThreshold) {
+        above++;
+      }
+    }
+    if (count == 0) {
+      return false;
+    }
+    switch (zone.rule) {
+      case RULE_AVERAGE:
+        zone.score = (double) sum / count;
+        return zone.rssiThreshold == RSSI_NONE || zone.score >= zone.rssiThreshold;
+      case RULE_ANY_ABOVE:
+        zone.score = max;
+        return above >= zone.minBeacons;
+      default:
+        zone.score = max;
+        return zone.rssiThreshold == RSSI_NONE || max >= zone.rssiThreshold;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.mackentoch.beaconsandroid;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fills the pipeline while its consumer is blocked and checks the bounds and drop counts.
+ */
+public class EventPipelineTest {
+  private static final int CAPACITY = 4;
+  private static final int TASK_CAPACITY = 8;
+
+  private EventPipeline mPipeline;
+  private final CountDownLatch mRelease = new CountDownLatch(1);
+  private final List<String> mRun = Collections.synchronizedList(new ArrayList<String>());
+
+  @Before
+  public void setUp() {
+    mPipeline = new EventPipeline(CAPACITY, TASK_CAPACITY);
+    // keeps the consumer busy, this task is pending no more once it started
+    final CountDownLatch started = new CountDownLatch(1);
+    mPipeline.execute(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        await(mRelease);
+      }
+    });
+    await(started);
+  }
+
+  @After
+  public void tearDown() {
+    mRelease.countDown();
+    mPipeline.shutdown();
+  }
+
+  @Test
+  public void tasksPastTheTaskCapacityAreDroppedAndCounted() {
+    for (int i = 0; i < TASK_CAPACITY + 3; i++) {
+      boolean queued = mPipeline.execute(record("task" + i));
+      assertEquals(i < TASK_CAPACITY, queued);
+    }
+    assertEquals(TASK_CAPACITY, mPipeline.getQueueDepth());
+    assertEquals(3, mPipeline.getDroppedTaskCount());
+    assertEquals(0, mPipeline.getDroppedCount());
+
+    drain();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < TASK_CAPACITY; i++) {
+      expected.add("task" + i);
+    }
+    assertEquals(expected, mRun);
+  }
+
+  @Test
+  public void framesStillQueueWhenTasksAreFull() {
+    for (int i = 0; i < TASK_CAPACITY; i++) {
+      assertTrue(mPipeline.execute(record("task" + i)));
+    }
+    for (int i = 0; i < CAPACITY; i++) {
+      mPipeline.executeFrame("region" + i, record("stale" + i));
+    }
+    for (int i = 0; i < CAPACITY; i++) {
+      mPipeline.executeFrame("region" + i, record("frame" + i));
+    }
+    mPipeline.executeFrame("region" + CAPACITY, record("frame" + CAPACITY));
+    assertFalse(mPipeline.execute(record("dropped")));
+
+    assertEquals(CAPACITY + TASK_CAPACITY, mPipeline.getQueueDepth());
+    // the stale frames and the frame of a key past capacity
+    assertEquals(CAPACITY + 1, mPipeline.getDroppedCount());
+    assertEquals(1, mPipeline.getDroppedTaskCount());
+
+    drain();
+    assertEquals(CAPACITY + TASK_CAPACITY, mRun.size());
+    assertTrue(mRun.containsAll(Arrays.asList("frame0", "frame1", "frame2", "frame3")));
+    assertFalse(mRun.contains("stale0"));
+    assertFalse(mRun.contains("dropped"));
+  }
+
+  private Runnable record(final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        mRun.add(name);
+      }
+    };
+  }
+
+  private void drain() {
+    mRelease.countDown();
+    final CountDownLatch drained = new CountDownLatch(1);
+    Runnable marker = new Runnable() {
+      @Override
+      public void run() {
+        drained.countDown();
+      }
+    };
+    // the tasks may all still be pending right after the release
+    while (!mPipeline.execute(marker)) {
+      Thread.yield();
+    }
+    await(drained);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
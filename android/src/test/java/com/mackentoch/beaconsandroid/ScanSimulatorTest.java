@@ -0,0 +1,133 @@
+package com.mackentoch.beaconsandroid;
+
+import org.altbeacon.beacon.Beacon;
+import org.altbeacon.beacon.MonitorNotifier;
+import org.altbeacon.beacon.RangeNotifier;
+import org.altbeacon.beacon.Region;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the simulator through an event pipeline, with stub notifiers standing in for the
+ * module: ranging frames are coalesced per region like the module's, monitoring callbacks are
+ * recorded.
+ */
+public class ScanSimulatorTest {
+  private static final byte[] UUID_BYTES = new byte[16];
+
+  private EventPipeline mPipeline;
+  private volatile ScanSimulator mSimulator;
+  private final List<String> mTransitions = Collections.synchronizedList(new ArrayList<String>());
+
+  private final RangeNotifier mRangeNotifier = new RangeNotifier() {
+    @Override
+    public void didRangeBeaconsInRegion(final Collection<Beacon> beacons, Region region) {
+      mPipeline.executeFrame(region.getUniqueId(), new Runnable() {
+        @Override
+        public void run() {
+          // slower than the simulator feeds cycles, so some of them are coalesced
+          sleep(1);
+          mSimulator.onCycleProcessed(beacons.size());
+        }
+      });
+    }
+  };
+
+  private final MonitorNotifier mMonitorNotifier = new MonitorNotifier() {
+    @Override
+    public void didEnterRegion(Region region) {
+      mTransitions.add("enter");
+    }
+
+    @Override
+    public void didExitRegion(Region region) {
+      mTransitions.add("exit");
+    }
+
+    @Override
+    public void didDetermineStateForRegion(int state, Region region) {
+      mTransitions.add(state == MonitorNotifier.INSIDE ? "inside" : "outside");
+    }
+  };
+
+  private final Executor mConsumer = new Executor() {
+    @Override
+    public void execute(Runnable runnable) {
+      mPipeline.execute(runnable);
+    }
+  };
+
+  @Before
+  public void setUp() {
+    mPipeline = new EventPipeline(EventPipeline.DEFAULT_CAPACITY, EventPipeline.DEFAULT_TASK_CAPACITY);
+  }
+
+  @After
+  public void tearDown() {
+    mPipeline.shutdown();
+  }
+
+  @Test
+  public void throughputOnlyCountsProcessedCycles() {
+    mSimulator = new ScanSimulator(mRangeNotifier, mMonitorNotifier, mConsumer, config(200));
+    ScanSimulator.Report report = mSimulator.run();
+
+    assertEquals(200, report.cycles);
+    assertEquals(200 * 10, report.beacons);
+    assertTrue(report.processedCycles > 0);
+    assertEquals(report.cycles, report.processedCycles + mPipeline.getDroppedCount());
+    assertEquals(report.getCoalescedCycles(), mPipeline.getDroppedCount());
+    assertEquals(report.processedCycles * 10L, report.processedBeacons);
+    assertEquals(report.processedCycles * 1e9 / report.elapsedNanos, report.getCyclesPerSecond(), 1e-6);
+    // latency markers are never coalesced
+    assertEquals(200, report.latencySamples);
+    assertTrue(report.latencyP50Nanos <= report.latencyMaxNanos);
+  }
+
+  @Test
+  public void entersBeforeTheFirstCycleAndExitsAfterTheLast() {
+    mSimulator = new ScanSimulator(mRangeNotifier, mMonitorNotifier, mConsumer, config(5));
+    mSimulator.run();
+
+    assertEquals(Arrays.asList("enter", "inside", "exit", "outside"), mTransitions);
+  }
+
+  @Test
+  public void replayExitsWhenCyclesAreFurtherApartThanTheExitPeriod() {
+    List<SightingRecorder.Sighting> sightings = Arrays.asList(
+      new SightingRecorder.Sighting(0, UUID_BYTES, 1, 1, -60, 1),
+      new SightingRecorder.Sighting(0, UUID_BYTES, 1, 2, -70, 2),
+      new SightingRecorder.Sighting(1000, UUID_BYTES, 1, 1, -61, 1),
+      new SightingRecorder.Sighting(1000 + ScanSimulator.EXIT_PERIOD + 1, UUID_BYTES, 1, 1, -62, 1)
+    );
+    mSimulator = ScanSimulator.replay(mRangeNotifier, mMonitorNotifier, mConsumer, config(0), sightings);
+    ScanSimulator.Report report = mSimulator.run();
+
+    assertEquals(3, report.cycles);
+    assertEquals(4, report.beacons);
+    assertEquals(Arrays.asList("enter", "inside", "exit", "outside", "enter", "inside", "exit", "outside"), mTransitions);
+  }
+
+  private static ScanSimulator.Config config(int cycles) {
+    return new ScanSimulator.Config("simulation", 10, cycles, 1100, 0, 0.1, 3, 42);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
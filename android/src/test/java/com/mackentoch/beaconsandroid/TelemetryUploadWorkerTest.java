@@ -0,0 +1,102 @@
+package com.mackentoch.beaconsandroid;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Posts spooled batches to a stub server on the loopback interface.
+ */
+public class TelemetryUploadWorkerTest {
+  private static final String BATCH = "[{\"type\":\"enter\",\"timestamp\":1,\"identifier\":\"region\"}]";
+
+  private HttpServer mServer;
+  private File mBatch;
+  private volatile int mResponseStatus = 200;
+  private volatile String mMethod;
+  private volatile String mContentEncoding;
+  private volatile String mAuthorization;
+  private volatile String mBody;
+
+  @Before
+  public void setUp() throws IOException {
+    mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    mServer.createContext("/telemetry", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        mMethod = exchange.getRequestMethod();
+        mContentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        mAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+        mBody = new String(readAll(new GZIPInputStream(exchange.getRequestBody())), StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(mResponseStatus, -1);
+        exchange.close();
+      }
+    });
+    mServer.start();
+    mBatch = File.createTempFile("batch-", TelemetryUploader.FILE_SUFFIX);
+    OutputStream output = new GZIPOutputStream(new FileOutputStream(mBatch));
+    try {
+      output.write(BATCH.getBytes(StandardCharsets.UTF_8));
+    } finally {
+      output.close();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    mServer.stop(0);
+    mBatch.delete();
+  }
+
+  @Test
+  public void postSendsGzippedBatchWithHeaders() throws IOException {
+    int status = TelemetryUploadWorker.post(createConfig(), mBatch);
+
+    assertEquals(200, status);
+    assertEquals("POST", mMethod);
+    assertEquals("gzip", mContentEncoding);
+    assertEquals("Bearer token", mAuthorization);
+    assertEquals(BATCH, mBody);
+  }
+
+  @Test
+  public void postReturnsServerStatus() throws IOException {
+    mResponseStatus = 503;
+
+    assertEquals(503, TelemetryUploadWorker.post(createConfig(), mBatch));
+  }
+
+  private TelemetryUploader.Config createConfig() {
+    String endpoint = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/telemetry";
+    return new TelemetryUploader.Config(true, endpoint, Collections.singletonMap("Authorization", "Bearer token"), false,
+      0, 0, 0);
+  }
+
+  private static byte[] readAll(InputStream input) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = input.read(buffer)) != -1) {
+      output.write(buffer, 0, read);
+    }
+    return output.toByteArray();
+  }
+}
@@ -16,6 +16,10 @@ export type BackgroundMonitorEvent = BeaconRegion & {
   state: 'inside' | 'outside';
 };
 
+export type BackgroundMonitorBatchEvent = {
+  events: Array<BeaconRegion & { event: 'enter' | 'exit' }>;
+};
+
 // iOS only
 export type AuthorizationStatus =
   | 'authorizedAlways'
@@ -53,6 +57,222 @@ export const transmissionSupport: Array<string> = [
 
 export type Parser = string | number;
 
+// android only
+export type RangingBatchConfig = {
+  enabled: boolean,
+  maxEmitRate?: number, // batches per second
+};
+
+// android only
+export type RangingDeltaConfig = {
+  enabled: boolean,
+  rssiThreshold?: number, // dBm
+  distanceThreshold?: number, // meters
+};
+
+// android only
+export type RangingBufferConfig = {
+  enabled: boolean,
+  capacity?: number, // records
+  bufferOnly?: boolean,
+};
+
+// android only
+export type RangingBufferReading = {
+  timestamp: number,
+  identifier: string,
+  uuid: string,
+  major?: number,
+  minor?: number,
+  rssi: number,
+  distance: number,
+};
+
+// android only
+export type RangingBufferReadings = {
+  readings: Array<RangingBufferReading>,
+  dropped: number,
+};
+
+// android only
+export type RegionDebounceConfig = {
+  enabled: boolean,
+  enterDelay?: number, // milliseconds
+  exitDelay?: number, // milliseconds
+  enterRssi?: number, // dBm
+  exitRssi?: number, // dBm
+};
+
+// android only
+export type AdaptiveScanConfig = {
+  enabled: boolean,
+  foregroundMinBetweenScanPeriod?: number, // milliseconds
+  foregroundMaxBetweenScanPeriod?: number, // milliseconds
+  backgroundMinBetweenScanPeriod?: number, // milliseconds
+  backgroundMaxBetweenScanPeriod?: number, // milliseconds
+  stableInterval?: number, // milliseconds
+};
+
+// android only
+export type Zone = {
+  identifier: string,
+  beacons: Array<{ uuid: string, major: number, minor: number }>,
+  rule?: 'strongest' | 'average' | 'anyAbove',
+  rssiThreshold?: number, // dBm
+  minBeacons?: number, // 'anyAbove' only
+};
+
+// android only
+export type ZonesConfig = {
+  zones: Array<Zone>,
+  expiration?: number, // milliseconds
+  zonesOnly?: boolean,
+};
+
+// android only
+export type PositioningConfig = {
+  enabled: boolean,
+  anchors?: Array<{ uuid: string, major: number, minor: number, x: number, y: number }>, // meters
+  smoothingFactor?: number, // between 0 and 1
+  outlierThreshold?: number, // meters
+  expiration?: number, // milliseconds
+  maxEmitRate?: number, // events per second
+  positionOnly?: boolean,
+};
+
+// android only
+export type BeaconFilterConfig = {
+  enabled: boolean,
+  minRssi?: number, // dBm
+  allow?: Array<{ uuid: string, major?: number, minor?: number }>,
+};
+
+// android only
+export type ParserStats = {
+  layout: string,
+  matches: number,
+};
+
+// android only
+export type BeaconTrackingConfig = {
+  enabled: boolean,
+  identifier?: string, // region identifier, all regions when omitted
+  smoothingFactor?: number, // between 0 and 1
+  expiration?: number, // milliseconds
+};
+
+// android only
+export type RangingOptions = {
+  topK?: number, // all beacons when omitted
+  sortBy?: 'distance' | 'rssi',
+};
+
+// android only
+export type RangedBeaconsQuery = {
+  identifier?: string, // all ranged regions when omitted
+  uuid?: string,
+  major?: number,
+  minor?: number,
+  minRssi?: number, // dBm
+  maxAge?: number, // milliseconds
+  limit?: number, // per region
+  sortBy?: 'distance' | 'rssi',
+};
+
+// android only
+export type RangingSubscriptionOptions = {
+  identifier?: string, // all ranged regions when omitted
+  uuid?: string,
+  major?: number,
+  minor?: number,
+  minRssi?: number, // dBm
+  maxEmitRate?: number, // events per second
+  topK?: number,
+  sortBy?: 'distance' | 'rssi',
+};
+
+// android only
+export type SightingRecorderConfig = {
+  enabled: boolean,
+  maxFileSize?: number, // bytes
+  maxFiles?: number,
+};
+
+// android only
+export type Sighting = {
+  timestamp: number,
+  uuid: string,
+  major?: number,
+  minor?: number,
+  rssi: number,
+  distance: number,
+};
+
+// android only
+export type SightingsPage = {
+  sightings: Array<Sighting>,
+  nextOffset: number,
+};
+
+// android only
+export type TelemetryConfig = {
+  enabled: boolean,
+  endpoint?: string,
+  headers?: { [name: string]: string },
+  persistHeaders?: boolean,
+  maxBatchSize?: number, // records
+  maxBatchAge?: number, // milliseconds
+  maxQueueSize?: number, // bytes
+};
+
+// android only
+export type SimulationConfig = {
+  identifier?: string,
+  beaconCount?: number,
+  cycles?: number,
+  cycleInterval?: number, // milliseconds
+  speedup?: number, // 0 to run cycles back to back
+  churn?: number, // between 0 and 1
+  rssiNoise?: number, // dBm
+  seed?: number,
+  replay?: boolean, // replay recorded sightings instead
+  replayLimit?: number,
+};
+
+// android only
+export type SimulationReport = {
+  cancelled: boolean,
+  cycles: number, // fed to the pipeline
+  beacons: number,
+  processedCycles: number,
+  processedBeacons: number,
+  coalescedCycles: number,
+  elapsed: number, // milliseconds
+  cyclesPerSecond: number,
+  beaconsPerSecond: number,
+  latencySamples: number,
+  latencyP50: number, // milliseconds
+  latencyP95: number,
+  latencyP99: number,
+  latencyMax: number,
+  pipelineDropped: number,
+  heapStart: number, // bytes
+  heapPeak: number,
+  heapEnd: number,
+  heapGrowth: number,
+  events: { [eventName: string]: number },
+};
+
+// android only
+export type EventPipelineStats = {
+  queueDepth: number,
+  capacity: number,
+  taskCapacity: number,
+  dropped: number,
+  droppedTasks: number,
+  processed: number,
+};
+
 export type BeaconsManagerIOS = {
   // specific to iOS:
   requestAlwaysAuthorization: () => void,
@@ -75,6 +295,12 @@ export type BeaconsManagerIOS = {
 export type BeaconsManagerANDROID = {
   // specific to android:
   setHardwareEqualityEnforced: (flag: boolean) => void,
+  setLogLevel: (level: number) => void,
+  setTraceEnabled: (enabled: boolean) => void,
+  LOG_LEVEL_DEBUG: number,
+  LOG_LEVEL_INFO: number,
+  LOG_LEVEL_WARN: number,
+  LOG_LEVEL_ERROR: number,
 
   addParser: (parser: Parser, resolve: () => any, reject: () => any) => void,
   addParsersListToDetection: (
@@ -88,6 +314,12 @@ export type BeaconsManagerANDROID = {
     resolve: () => any,
     reject: () => any,
   ) => void,
+  setParsers: (
+    parsers: Array<Parser>,
+    resolve: () => any,
+    reject: () => any,
+  ) => void,
+  getParserStats: (resolve: (stats: Array<ParserStats>) => any) => void,
 
   detectIBeacons: () => Promise<any>,
   addIBeaconsDetection: () => Promise<any>,
@@ -123,11 +355,91 @@ export type BeaconsManagerANDROID = {
 
   setBackgroundScanPeriod: (period: number) => void,
   setBackgroundBetweenScanPeriod: (period: number) => void,
+  setHeadlessKeepWarmTimeout: (timeout: number) => void,
+  setAdaptiveScanConfig: (config: AdaptiveScanConfig) => void,
   setForegroundScanPeriod: (period: number) => void,
   setRssiFilter: (filterType: number, avgModifier: number) => void,
+  setRangingBatchConfig: (config: RangingBatchConfig) => void,
+  setRangingDeltaConfig: (config: RangingDeltaConfig) => void,
+  startMonitoringRegions: (
+    regions: Array<Object>,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  startRangingRegions: (
+    regions: Array<Object>,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  stopRegions: (
+    identifiers: Array<string>,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  setRegionDebounceConfig: (config: RegionDebounceConfig) => void,
+  setPositioningConfig: (
+    config: PositioningConfig,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  setZones: (
+    config: ZonesConfig,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  setBeaconFilter: (
+    config: BeaconFilterConfig,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  setRangingPayloadFormat: (format: number) => void,
+  setRangingBufferConfig: (config: RangingBufferConfig) => void,
+  readRangingBuffer: (
+    cursor: number,
+    maxRecords: number,
+  ) => { data: string, cursor: number, dropped: number, tablesVersion: number },
+  getRangingBufferTables: () => { regions: Array<string>, uuids: Array<string> },
+  setBeaconTrackingConfig: (config: BeaconTrackingConfig) => void,
+  setSightingRecorderConfig: (config: SightingRecorderConfig) => void,
+  getSightings: (
+    offset: number,
+    limit: number,
+    resolve: (page: SightingsPage) => any,
+    reject: () => any,
+  ) => void,
+  clearSightings: (resolve: () => any) => void,
+  setTelemetryConfig: (
+    config: TelemetryConfig,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  flushTelemetry: (resolve: () => any) => void,
+  startSimulation: (
+    config: SimulationConfig,
+    resolve: (report: SimulationReport) => any,
+    reject: (error: string) => any,
+  ) => void,
+  stopSimulation: () => void,
+  getEventPipelineStats: (resolve: (stats: EventPipelineStats) => any) => void,
+  getStats: (resolve: (stats: Object) => any) => void,
+  resetStats: () => void,
   getRangedRegions: (value?: any) => void,
+  getRangedBeacons: (query: RangedBeaconsQuery) => { regions: Array<Object> },
+  addRangingSubscription: (
+    subscriptionId: string,
+    options: RangingSubscriptionOptions,
+    resolve: () => any,
+    reject: (error: string) => any,
+  ) => void,
+  removeRangingSubscription: (
+    subscriptionId: string,
+    resolve: (removed: boolean) => any,
+  ) => void,
+  setRangingSubscriptionsOnly: (subscriptionsOnly: boolean) => void,
   ARMA_RSSI_FILTER: string,
   RUNNING_AVG_RSSI_FILTER: string,
+  PAYLOAD_FORMAT_MAP: number,
+  PAYLOAD_FORMAT_COMPACT: number,
   getMonitoredRegions: (value?: any) => void,
   checkTransmissionSupported: (status: any) => any,
 
@@ -148,6 +460,16 @@ export type BeaconsManagerANDROID = {
     reject: () => any,
   ) => void,
 
+  startRangingWithOptions: (
+    regionId: string,
+    uuid: string,
+    minor: number,
+    major: number,
+    options: RangingOptions,
+    resolve: () => any,
+    reject: () => any,
+  ) => void,
+
   stopMonitoring: (
     regionId: string,
     uuid: string,
@@ -8,6 +8,28 @@ import {
   type BeaconsManagerANDROID,
   type Parser,
   type BackgroundMonitorEvent,
+  type RangingBatchConfig,
+  type RangingDeltaConfig,
+  type RangingBufferConfig,
+  type RangingBufferReading,
+  type RangingBufferReadings,
+  type BeaconTrackingConfig,
+  type RangingOptions,
+  type RangedBeaconsQuery,
+  type RangingSubscriptionOptions,
+  type SightingRecorderConfig,
+  type SightingsPage,
+  type TelemetryConfig,
+  type SimulationConfig,
+  type SimulationReport,
+  type EventPipelineStats,
+  type BackgroundMonitorBatchEvent,
+  type RegionDebounceConfig,
+  type AdaptiveScanConfig,
+  type ParserStats,
+  type BeaconFilterConfig,
+  type ZonesConfig,
+  type PositioningConfig,
 } from './module.types';
 import {
   PARSER_IBEACON,
@@ -27,12 +49,40 @@ const BeaconsEventEmitter = RN.DeviceEventEmitter;
 
 const ARMA_RSSI_FILTER = BeaconsManager && BeaconsManager.ARMA_RSSI_FILTER || undefined;
 const RUNNING_AVG_RSSI_FILTER = BeaconsManager && BeaconsManager.RUNNING_AVG_RSSI_FILTER || undefined;
+const PAYLOAD_FORMAT_MAP = BeaconsManager && BeaconsManager.PAYLOAD_FORMAT_MAP;
+const PAYLOAD_FORMAT_COMPACT = BeaconsManager && BeaconsManager.PAYLOAD_FORMAT_COMPACT;
+const LOG_LEVEL_DEBUG = BeaconsManager && BeaconsManager.LOG_LEVEL_DEBUG;
+const LOG_LEVEL_INFO = BeaconsManager && BeaconsManager.LOG_LEVEL_INFO;
+const LOG_LEVEL_WARN = BeaconsManager && BeaconsManager.LOG_LEVEL_WARN;
+const LOG_LEVEL_ERROR = BeaconsManager && BeaconsManager.LOG_LEVEL_ERROR;
+
+const RANGING_BUFFER_RECORD_SIZE = 24;
+const RANGING_BUFFER_FLAG_HAS_MAJOR_MINOR = 1;
+let rangingBufferCursor = 0;
+let rangingBufferTables = { version: -1, regions: [], uuids: [] };
 // #endregion
 
 function setHardwareEqualityEnforced(flag: boolean): void {
   BeaconsManager.setHardwareEqualityEnforced(flag);
 }
 
+/**
+ * native log level (LOG_LEVEL_WARN by default, debug messages are only built at LOG_LEVEL_DEBUG)
+ *
+ * @param {number} level LOG_LEVEL_DEBUG, LOG_LEVEL_INFO, LOG_LEVEL_WARN or LOG_LEVEL_ERROR
+ */
+function setLogLevel(level: number): void {
+  BeaconsManager.setLogLevel(level);
+}
+
+/**
+ * log processing time of each ranging cycle (tag 'BeaconsTrace')
+ *
+ */
+function setTraceEnabled(enabled: boolean): void {
+  BeaconsManager.setTraceEnabled(enabled);
+}
+
 // #region iBeacon
 /**
  * set beacon layout for iBeacon
@@ -231,6 +281,29 @@ function removeParsersListToDetection(parsers: Array<Parser>) {
     BeaconsManager.removeParsersListToDetection(parsers, resolve, reject);
   });
 }
+
+/**
+ * replaces all detection parsers at once (nothing changes when a layout is invalid)
+ *
+ * @param {Array<Parser>} parsers parser layouts
+ */
+function setParsers(parsers: Array<Parser>) {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.setParsers(parsers, resolve, reject);
+  });
+}
+
+/**
+ * number of ranged beacons matched by each detection parser since last resetStats():
+ * a parser that never matches can be removed, each parser costs on every advertisement
+ *
+ * @returns {Promise<Array<ParserStats>>} promise resolves to one entry per detection parser
+ */
+function getParserStats(): Promise<Array<ParserStats>> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.getParserStats(resolve);
+  });
+}
 // #endregion
 
 function setBackgroundScanPeriod(period: number): void {
@@ -245,6 +318,18 @@ function setForegroundScanPeriod(period: number): void {
   BeaconsManager.setForegroundScanPeriod(period);
 }
 
+/**
+ * let native side adapt between scan periods to detection activity:
+ * back to the minimum as soon as beacons appear / disappear or a region is entered / exited,
+ * doubled every stableInterval without change up to the maximum.
+ * Overrides the between scan periods set with setBackgroundBetweenScanPeriod while enabled, they are restored once disabled.
+ *
+ * @param {AdaptiveScanConfig} config enabled + min / max between scan periods and stableInterval (milliseconds)
+ */
+function setAdaptiveScanConfig(config: AdaptiveScanConfig): void {
+  BeaconsManager.setAdaptiveScanConfig(config);
+}
+
 function enableForegroundServiceScanning(
   config
 ): void {
@@ -259,12 +344,313 @@ function setRssiFilter(filterType: number, avgModifier: number): void {
   BeaconsManager.setRssiFilter(filterType, avgModifier);
 }
 
+/**
+ * coalesce ranging results into a single 'beaconsDidRangeBatch' event per flush window
+ * (instead of one 'beaconsDidRange' event per region and scan cycle)
+ *
+ * @param {RangingBatchConfig} config enabled + maxEmitRate (batches per second)
+ */
+function setRangingBatchConfig(config: RangingBatchConfig): void {
+  BeaconsManager.setRangingBatchConfig(config);
+}
+
+/**
+ * only emit added / removed beacons and beacons that changed beyond thresholds
+ * ('beaconsDidRangeDelta' event, or delta entries in 'beaconsDidRangeBatch' when batching is enabled)
+ *
+ * @param {RangingDeltaConfig} config enabled + rssiThreshold (dBm) + distanceThreshold (meters)
+ */
+function setRangingDeltaConfig(config: RangingDeltaConfig): void {
+  BeaconsManager.setRangingDeltaConfig(config);
+}
+
+/**
+ * drop ranged beacons natively, before any event payload is built:
+ * beacons below minRssi or matching no allow entry are never sent to JS.
+ * An allow entry without major (or minor) accepts any major (or minor) of its uuid.
+ *
+ * @param {BeaconFilterConfig} config enabled + minRssi (dBm) + allow list of {uuid, major?, minor?}
+ * @returns {Promise<any>} promise resolves to void or error (invalid uuid)
+ */
+function setBeaconFilter(config: BeaconFilterConfig): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.setBeaconFilter(config, resolve, reject);
+  });
+}
+
+/**
+ * aggregate ranged beacons into zones natively:
+ * 'zoneDidEnter' / 'zoneDidExit' ({zone, score}) and 'nearestZoneDidChange' events are sent
+ * when zone presence computed with the zone rule changes.
+ * rules: 'strongest' / 'average' member rssi >= rssiThreshold, 'anyAbove' at least minBeacons members >= rssiThreshold.
+ * With zonesOnly, ranging events are not sent anymore, only zone events.
+ * An empty zones list disables zones. Occupied zones that are removed get a 'zoneDidExit' event.
+ *
+ * @param {ZonesConfig} config zones + expiration (milliseconds a beacon counts after being seen) + zonesOnly
+ * @returns {Promise<any>} promise resolves to void or error (invalid zone)
+ */
+function setZones(config: ZonesConfig): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.setZones(config, resolve, reject);
+  });
+}
+
+/**
+ * estimate a 2D position natively from ranged anchors (beacons with known x / y in meters):
+ * weighted least squares trilateration with outlier rejection, smoothed,
+ * sent as 'positionDidUpdate' events ({x, y, accuracy, beacons}) at most maxEmitRate times per second.
+ * With positionOnly, ranging events are not sent anymore, only positions.
+ *
+ * @param {PositioningConfig} config enabled + anchors + smoothingFactor, outlierThreshold (meters), expiration (milliseconds), maxEmitRate, positionOnly
+ * @returns {Promise<any>} promise resolves to void or error (invalid anchor)
+ */
+function setPositioningConfig(config: PositioningConfig): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.setPositioningConfig(config, resolve, reject);
+  });
+}
+
+/**
+ * debounce 'regionDidEnter' / 'regionDidExit' events:
+ * a transition is only emitted once the region has kept its new state for enterDelay / exitDelay,
+ * so regions at the edge of coverage stop flapping.
+ * When the region is also ranged, enterRssi / exitRssi add an rssi hysteresis on the strongest beacon.
+ *
+ * @param {RegionDebounceConfig} config enabled + enterDelay, exitDelay (milliseconds) + enterRssi, exitRssi (dBm)
+ */
+function setRegionDebounceConfig(config: RegionDebounceConfig): void {
+  BeaconsManager.setRegionDebounceConfig(config);
+}
+
+/**
+ * choose how beacons are sent in ranging events:
+ * PAYLOAD_FORMAT_MAP (default) an object per beacon
+ * PAYLOAD_FORMAT_COMPACT a tuple per beacon: [uuid, major, minor, rssi, distance, proximity]
+ *
+ * @param {number} format PAYLOAD_FORMAT_MAP or PAYLOAD_FORMAT_COMPACT
+ */
+function setRangingPayloadFormat(format: number): void {
+  BeaconsManager.setRangingPayloadFormat(format);
+}
+
+/**
+ * keep ranged beacons in a native ring buffer of fixed-width records,
+ * read synchronously with readRangingBuffer instead of one event per ranging cycle.
+ * With bufferOnly, 'beaconsDidRange' events are not sent anymore.
+ *
+ * @param {RangingBufferConfig} config enabled + capacity (records) + bufferOnly
+ */
+function setRangingBufferConfig(config: RangingBufferConfig): void {
+  rangingBufferCursor = 0;
+  rangingBufferTables = { version: -1, regions: [], uuids: [] };
+  BeaconsManager.setRangingBufferConfig(config);
+}
+
+/**
+ * synchronously read the readings buffered since the previous read
+ * (readings overwritten in between are counted in 'dropped')
+ *
+ * @param {number} [maxRecords=0] max number of readings, 0 for all
+ * @returns {RangingBufferReadings} { readings, dropped }
+ */
+function readRangingBuffer(maxRecords: number = 0): RangingBufferReadings {
+  const chunk = BeaconsManager.readRangingBuffer(rangingBufferCursor, maxRecords);
+  rangingBufferCursor = chunk.cursor;
+  if (chunk.tablesVersion !== rangingBufferTables.version) {
+    const tables = BeaconsManager.getRangingBufferTables();
+    rangingBufferTables = { version: chunk.tablesVersion, regions: tables.regions, uuids: tables.uuids };
+  }
+
+  const { data } = chunk;
+  const bytes = new Uint8Array(data.length);
+  for (let i = 0; i < data.length; i++) {
+    bytes[i] = data.charCodeAt(i);
+  }
+  const view = new DataView(bytes.buffer);
+  const readings: Array<RangingBufferReading> = [];
+  for (let offset = 0; offset < bytes.length; offset += RANGING_BUFFER_RECORD_SIZE) {
+    const flags = view.getUint16(offset + 18, true);
+    const reading: RangingBufferReading = {
+      timestamp: view.getFloat64(offset, true),
+      identifier: rangingBufferTables.regions[view.getUint16(offset + 8, true)],
+      uuid: rangingBufferTables.uuids[view.getUint16(offset + 10, true)],
+      rssi: view.getInt16(offset + 16, true),
+      distance: view.getFloat32(offset + 20, true),
+    };
+    if (flags & RANGING_BUFFER_FLAG_HAS_MAJOR_MINOR) {
+      reading.major = view.getUint16(offset + 12, true);
+      reading.minor = view.getUint16(offset + 14, true);
+    }
+    readings.push(reading);
+  }
+  return { readings, dropped: chunk.dropped };
+}
+
+/**
+ * track beacons natively: adds smoothedRssi, smoothedDistance, firstSeen, lastSeen and dwellTime
+ * to each ranged beacon (exponentially weighted moving average per beacon)
+ *
+ * @param {BeaconTrackingConfig} config applies to every region or only to 'identifier' region when set
+ */
+function setBeaconTrackingConfig(config: BeaconTrackingConfig): void {
+  BeaconsManager.setBeaconTrackingConfig(config);
+}
+
+/**
+ * record every ranged beacon natively in a rotating, append-only log (no JS involved)
+ *
+ * @param {SightingRecorderConfig} config enabled + maxFileSize (bytes) + maxFiles
+ */
+function setSightingRecorderConfig(config: SightingRecorderConfig): void {
+  BeaconsManager.setSightingRecorderConfig(config);
+}
+
+/**
+ * read recorded sightings, oldest first
+ * Offsets are cursors that stay valid when files rotate; a cursor into a deleted file resumes at the oldest sighting left.
+ *
+ * @param {number} offset 0 for the oldest sighting, then 'nextOffset' of the previous page
+ * @param {number} limit max number of sightings in the page
+ * @returns {Promise<SightingsPage>} promise resolves to { sightings, nextOffset }
+ */
+function getSightings(offset: number, limit: number): Promise<SightingsPage> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.getSightings(offset, limit, resolve, reject);
+  });
+}
+
+function clearSightings(): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.clearSightings(resolve);
+  });
+}
+
+/**
+ * upload sightings and region transitions natively (no JS involved, also in background):
+ * records are batched, gzipped, spooled to disk and POSTed as JSON arrays to the endpoint
+ * by a WorkManager job, retried with backoff until accepted.
+ * Headers are only kept in memory: uploads started after the app process was killed wait until the config is set again,
+ * unless persistHeaders is set, which stores them in plain text in the app private shared preferences.
+ *
+ * @param {TelemetryConfig} config enabled + endpoint + headers + persistHeaders + maxBatchSize (records), maxBatchAge (milliseconds), maxQueueSize (bytes)
+ * @returns {Promise<any>} promise resolves to void or error (invalid endpoint)
+ */
+function setTelemetryConfig(config: TelemetryConfig): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.setTelemetryConfig(config, resolve, reject);
+  });
+}
+
+/**
+ * spool the pending telemetry records now and schedule their upload
+ */
+function flushTelemetry(): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.flushTelemetry(resolve);
+  });
+}
+
+/**
+ * load test without hardware: feeds a synthetic trace (or with replay, the recorded sightings)
+ * through the native ranging and monitoring path, with the current batching, delta, buffer, subscription,
+ * zone, positioning and debounce settings. Rejects while any region is monitored or ranged.
+ * While it runs events are counted natively instead of being emitted to JS.
+ * Simulated beacons are not recorded, uploaded, nor used by adaptive scanning; zones and positioning are reset afterwards.
+ *
+ * @param {SimulationConfig} config identifier, beaconCount, cycles, cycleInterval (milliseconds), speedup (0: no wait), churn, rssiNoise, seed, replay, replayLimit
+ * @returns {Promise<SimulationReport>} promise resolves once every cycle was processed, to latency (milliseconds), throughput of the processed
+ * (not coalesced) cycles, heap figures and the count of each event that would have been emitted
+ */
+function startSimulation(config: SimulationConfig): Promise<SimulationReport> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.startSimulation(config, resolve, reject);
+  });
+}
+
+function stopSimulation(): void {
+  BeaconsManager.stopSimulation();
+}
+
+/**
+ * native metrics: per region callback counts and beacons per cycle, payload build time and
+ * emit time histograms, events dropped while no React instance was active, headless task counts
+ *
+ * @returns {Promise<Object>} promise resolves to the metrics snapshot
+ */
+function getStats(): Promise<Object> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.getStats(resolve);
+  });
+}
+
+function resetStats(): void {
+  BeaconsManager.resetStats();
+}
+
+/**
+ * state of the native queue monitoring and ranging events go through before being emitted.
+ * dropped counts the stale ranging frames replaced by a newer one of the same region (capacity regions pending at most).
+ * Monitoring events are only dropped, and counted in droppedTasks, once taskCapacity of them are pending: JS stopped consuming events.
+ *
+ * @returns {Promise<EventPipelineStats>} promise resolves to { queueDepth, capacity, taskCapacity, dropped, droppedTasks, processed }
+ */
+function getEventPipelineStats(): Promise<EventPipelineStats> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.getEventPipelineStats(resolve);
+  });
+}
+
 function getRangedRegions(): Promise<any> {
   return new Promise((resolve, reject) => {
     BeaconsManager.getRangedRegions(resolve);
   });
 }
 
+/**
+ * synchronously read the latest ranged beacons kept natively for every ranged region,
+ * for screens polling occasionally instead of listening to 'beaconsDidRange'
+ *
+ * @param {RangedBeaconsQuery} [query={}] identifier, uuid, major, minor, minRssi, maxAge (milliseconds), limit (per region), sortBy
+ * @returns {{ regions: Array<Object> }} one { region, beacons, timestamp } per matching region
+ */
+function getRangedBeacons(query: RangedBeaconsQuery = {}): { regions: Array<Object> } {
+  return BeaconsManager.getRangedBeacons(query);
+}
+
+/**
+ * register (or replace) a native ranging subscription:
+ * 'beaconsDidRangeSubscription' events ({ subscriptionId, region, beacons }) only carry
+ * the beacons of its region matching its filter, at most maxEmitRate times per second
+ *
+ * @param {string} subscriptionId id sent back in the events
+ * @param {RangingSubscriptionOptions} [options={}] identifier, uuid, major, minor, minRssi, maxEmitRate, topK, sortBy
+ * @returns {Promise<any>} promise resolves to void or error (invalid uuid)
+ */
+function addRangingSubscription(
+  subscriptionId: string,
+  options: RangingSubscriptionOptions = {},
+): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.addRangingSubscription(subscriptionId, options, resolve, reject);
+  });
+}
+
+/**
+ * @returns {Promise<boolean>} promise resolves to false when there was no such subscription
+ */
+function removeRangingSubscription(subscriptionId: string): Promise<boolean> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.removeRangingSubscription(subscriptionId, resolve);
+  });
+}
+
+/**
+ * stop sending 'beaconsDidRange' events while ranging subscriptions exist
+ */
+function setRangingSubscriptionsOnly(subscriptionsOnly: boolean): void {
+  BeaconsManager.setRangingSubscriptionsOnly(subscriptionsOnly);
+}
+
 /**
  * get monitored regions
  *
@@ -362,6 +748,31 @@ function startRangingBeaconsInRegion(
   });
 }
 
+/**
+ * start ranging a region, only emitting its top K beacons (closest or strongest)
+ * a 'nearestBeaconDidChange' event is also sent when the nearest beacon of the region changes
+ *
+ * @param {BeaconRegion} region region to range
+ * @param {RangingOptions} options topK + sortBy ('distance' or 'rssi')
+ * @returns {Promise<any>} promise resolves to void or error
+ */
+function startRangingBeaconsInRegionWithOptions(
+  region: BeaconRegion,
+  options: RangingOptions,
+): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.startRangingWithOptions(
+      region.identifier,
+      region.uuid,
+      region.minor ? region.minor : -1,
+      region.major ? region.major : -1,
+      options,
+      resolve,
+      reject,
+    );
+  });
+}
+
 /**
  * Stops the range scan for beacons
  *
@@ -391,6 +802,51 @@ function stopRangingBeaconsInRegion(
   });
 }
 
+/**
+ * starts monitoring for several regions in a single native call
+ *
+ * @param {Array<BeaconRegion>} regions regions (see BeaconRegion type)
+ * @returns {Promise<any>} promise resolves to void or error (no region is started when one is invalid)
+ */
+function startMonitoringForRegions(regions: Array<BeaconRegion>): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.startMonitoringRegions(toNativeRegions(regions), resolve, reject);
+  });
+}
+
+/**
+ * starts ranging for several regions in a single native call
+ *
+ * @param {Array<BeaconRegion>} regions regions (see BeaconRegion type)
+ * @returns {Promise<any>} promise resolves to void or error (no region is started when one is invalid)
+ */
+function startRangingBeaconsInRegions(regions: Array<BeaconRegion>): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.startRangingRegions(toNativeRegions(regions), resolve, reject);
+  });
+}
+
+/**
+ * stops both monitoring and ranging for several regions in a single native call
+ *
+ * @param {Array<string>} identifiers region identifiers
+ * @returns {Promise<any>} promise resolves to void or error
+ */
+function stopRegions(identifiers: Array<string>): Promise<any> {
+  return new Promise((resolve, reject) => {
+    BeaconsManager.stopRegions(identifiers, resolve, reject);
+  });
+}
+
+function toNativeRegions(regions: Array<BeaconRegion>): Array<Object> {
+  return regions.map(region => ({
+    identifier: region.identifier,
+    uuid: region.uuid,
+    minor: region.minor ? region.minor : -1,
+    major: region.major ? region.major : -1,
+  }));
+}
+
 /**
  * Retrieves the state of a region asynchronously.
  *
@@ -419,6 +875,33 @@ function setBackgroundMonitorHandler(
   });
 }
 
+/**
+ * Set a handler called with the batched region transitions delivered while the app is in the background.
+ * Only used when native side is initialized with a coalescing window: `RNBeacon.init(context, coalescingWindow)`.
+ * A large window (over a hundred regions) may be delivered in several calls.
+ * Should be called before the app is registered in `AppRegistry`, for example in `index.js`.
+ * @param handler called with an argument of type BackgroundMonitorBatchEvent that must be async and return a Promise
+ */
+function setBackgroundMonitorBatchHandler(
+  handler: (event: BackgroundMonitorBatchEvent) => Promise<void>
+): void {
+  RN.AppRegistry.registerHeadlessTask('ReactNativeBeaconBatchHeadlessTask', () => {
+    return event => handler(event);
+  });
+}
+
+/**
+ * keep the React context warm between background tasks: the worker of the last finished task keeps running
+ * for timeout milliseconds, a task arriving meanwhile skips the cold start.
+ * WorkManager counts the held worker as running, each task costs up to timeout more execution time,
+ * and a held worker is stopped at the WorkManager execution limit (10 minutes).
+ * Not persisted: call it when the bundle loads, for example in `index.js`.
+ * @param {number} timeout milliseconds, 0 (default) to complete the worker as soon as the task finished
+ */
+function setHeadlessKeepWarmTimeout(timeout: number): void {
+  BeaconsManager.setHeadlessKeepWarmTimeout(timeout);
+}
+
 module.exports = {
   // parsers constants
   PARSER_IBEACON,
@@ -430,6 +913,12 @@ module.exports = {
 
   BeaconsEventEmitter,
   setHardwareEqualityEnforced,
+  setLogLevel,
+  setTraceEnabled,
+  LOG_LEVEL_DEBUG,
+  LOG_LEVEL_INFO,
+  LOG_LEVEL_WARN,
+  LOG_LEVEL_ERROR,
   // iBeacons:
   detectIBeacons,
   addIBeaconsDetection,
@@ -461,29 +950,66 @@ module.exports = {
 
   addParsersListToDetection,
   removeParsersListToDetection,
+  setParsers,
+  getParserStats,
 
   setBackgroundScanPeriod,
   setBackgroundBetweenScanPeriod,
+  setAdaptiveScanConfig,
   setForegroundScanPeriod,
 
   enableForegroundServiceScanning,
   disableForegroundServiceScanning,
 
   setRssiFilter,
+  setRangingBatchConfig,
+  setRangingDeltaConfig,
+  setRegionDebounceConfig,
+  setBeaconFilter,
+  setZones,
+  setPositioningConfig,
+  setRangingPayloadFormat,
+  setRangingBufferConfig,
+  readRangingBuffer,
+  setBeaconTrackingConfig,
+  setSightingRecorderConfig,
+  getSightings,
+  clearSightings,
+  setTelemetryConfig,
+  flushTelemetry,
+  startSimulation,
+  stopSimulation,
+  getEventPipelineStats,
+  getStats,
+  resetStats,
   checkTransmissionSupported,
   getRangedRegions,
+  getRangedBeacons,
+  addRangingSubscription,
+  removeRangingSubscription,
+  setRangingSubscriptionsOnly,
   ARMA_RSSI_FILTER,
   RUNNING_AVG_RSSI_FILTER,
+  PAYLOAD_FORMAT_MAP,
+  PAYLOAD_FORMAT_COMPACT,
 
   getMonitoredRegions,
   cleanUpRegions,
 
+  startRangingBeaconsInRegionWithOptions,
+
+  setBackgroundMonitorBatchHandler,
+  setHeadlessKeepWarmTimeout,
+
   // common with iOS:
   startMonitoringForRegion,
   startRangingBeaconsInRegion,
   stopMonitoringForRegion,
   stopRangingBeaconsInRegion,
   requestStateForRegion,
+  startMonitoringForRegions,
+  startRangingBeaconsInRegions,
+  stopRegions,
 
   setBackgroundMonitorHandler,
 };
@@ -173,6 +173,60 @@ function requestStateForRegion(region: BeaconRegion): void {
   BeaconsManager.requestStateForRegion(region);
 }
 
+/**
+ * starts monitoring for several regions (one native call per region on iOS)
+ *
+ * @param {Array<BeaconRegion>} regions regions to monitor (identifier + uuid -> major and minor are optional)
+ * @returns {Promise<any>} promise resolves to void or error
+ */
+function startMonitoringForRegions(regions: Array<BeaconRegion>): Promise<any> {
+  return new Promise((resolve, reject) => {
+    try {
+      regions.forEach(region => BeaconsManager.startMonitoringForRegion(region));
+      resolve();
+    } catch (error) {
+      reject(error);
+    }
+  });
+}
+
+/**
+ * starts ranging for several regions (one native call per region on iOS)
+ *
+ * @param {Array<BeaconRegion>} regions regions to scan (identifier + uuid -> major and minor are optional)
+ * @returns {Promise<any>} promise resolves to void or error
+ */
+function startRangingBeaconsInRegions(regions: Array<BeaconRegion>): Promise<any> {
+  return new Promise((resolve, reject) => {
+    try {
+      regions.forEach(region => BeaconsManager.startRangingBeaconsInRegion(region));
+      resolve();
+    } catch (error) {
+      reject(error);
+    }
+  });
+}
+
+/**
+ * stops both monitoring and ranging for several regions, looked up by identifier
+ * among the monitored and ranged regions
+ *
+ * @param {Array<string>} identifiers region identifiers
+ * @returns {Promise<any>} promise resolves to void or error
+ */
+function stopRegions(identifiers: Array<string>): Promise<any> {
+  return Promise.all([getMonitoredRegions(), getRangedRegions()]).then(
+    ([monitoredRegions, rangedRegions]) => {
+      monitoredRegions
+        .filter(region => identifiers.includes(region.identifier))
+        .forEach(region => BeaconsManager.stopMonitoringForRegion(region));
+      rangedRegions
+        .filter(region => identifiers.includes(region.identifier))
+        .forEach(region => BeaconsManager.stopRangingBeaconsInRegion(region));
+    }
+  );
+}
+
 /**
  * Set a handler that will be called when a message is received while the app is in the background.
  * Should be called before the app is registered in `AppRegistry`, for example in `index.js`.
@@ -214,6 +268,9 @@ module.exports = {
   stopMonitoringForRegion,
   stopRangingBeaconsInRegion,
   requestStateForRegion,
+  startMonitoringForRegions,
+  startRangingBeaconsInRegions,
+  stopRegions,
 
   setBackgroundMonitorHandler,
 };
@@ -17,6 +17,203 @@ declare module 'react-native-beacons-manager' {
   export interface BackgroundMonitorEvent extends BeaconRegion {
     event: 'enter' | 'exit';
   }
+
+  export interface BackgroundMonitorBatchEvent {
+    events: Array<BackgroundMonitorEvent>;
+  }
+
+  export interface RangingBatchConfig {
+    enabled: boolean,
+    maxEmitRate?: number
+  }
+
+  export interface RangingDeltaConfig {
+    enabled: boolean,
+    rssiThreshold?: number,
+    distanceThreshold?: number
+  }
+
+  export interface RangingBufferConfig {
+    enabled: boolean,
+    capacity?: number,
+    bufferOnly?: boolean
+  }
+
+  export interface RangingBufferReading {
+    timestamp: number,
+    identifier: string,
+    uuid: string,
+    major?: number,
+    minor?: number,
+    rssi: number,
+    distance: number
+  }
+
+  export interface RangingBufferReadings {
+    readings: Array<RangingBufferReading>,
+    dropped: number
+  }
+
+  export interface RegionDebounceConfig {
+    enabled: boolean,
+    enterDelay?: number,
+    exitDelay?: number,
+    enterRssi?: number,
+    exitRssi?: number
+  }
+
+  export interface AdaptiveScanConfig {
+    enabled: boolean,
+    foregroundMinBetweenScanPeriod?: number,
+    foregroundMaxBetweenScanPeriod?: number,
+    backgroundMinBetweenScanPeriod?: number,
+    backgroundMaxBetweenScanPeriod?: number,
+    stableInterval?: number
+  }
+
+  export interface Zone {
+    identifier: string,
+    beacons: Array<{ uuid: string, major: number, minor: number }>,
+    rule?: 'strongest' | 'average' | 'anyAbove',
+    rssiThreshold?: number,
+    minBeacons?: number
+  }
+
+  export interface ZonesConfig {
+    zones: Array<Zone>,
+    expiration?: number,
+    zonesOnly?: boolean
+  }
+
+  export interface PositioningConfig {
+    enabled: boolean,
+    anchors?: Array<{ uuid: string, major: number, minor: number, x: number, y: number }>,
+    smoothingFactor?: number,
+    outlierThreshold?: number,
+    expiration?: number,
+    maxEmitRate?: number,
+    positionOnly?: boolean
+  }
+
+  export interface BeaconFilterConfig {
+    enabled: boolean,
+    minRssi?: number,
+    allow?: Array<{ uuid: string, major?: number, minor?: number }>
+  }
+
+  export interface ParserStats {
+    layout: string,
+    matches: number
+  }
+
+  export interface BeaconTrackingConfig {
+    enabled: boolean,
+    identifier?: string,
+    smoothingFactor?: number,
+    expiration?: number
+  }
+
+  export interface RangingOptions {
+    topK?: number,
+    sortBy?: 'distance' | 'rssi'
+  }
+
+  export interface RangedBeaconsQuery {
+    identifier?: string,
+    uuid?: string,
+    major?: number,
+    minor?: number,
+    minRssi?: number,
+    maxAge?: number,
+    limit?: number,
+    sortBy?: 'distance' | 'rssi'
+  }
+
+  export interface RangingSubscriptionOptions {
+    identifier?: string,
+    uuid?: string,
+    major?: number,
+    minor?: number,
+    minRssi?: number,
+    maxEmitRate?: number,
+    topK?: number,
+    sortBy?: 'distance' | 'rssi'
+  }
+
+  export interface SightingRecorderConfig {
+    enabled: boolean,
+    maxFileSize?: number,
+    maxFiles?: number
+  }
+
+  export interface Sighting {
+    timestamp: number,
+    uuid: string,
+    major?: number,
+    minor?: number,
+    rssi: number,
+    distance: number
+  }
+
+  export interface SightingsPage {
+    sightings: Array<Sighting>,
+    nextOffset: number
+  }
+
+  export interface TelemetryConfig {
+    enabled: boolean,
+    endpoint?: string,
+    headers?: { [name: string]: string },
+    persistHeaders?: boolean,
+    maxBatchSize?: number,
+    maxBatchAge?: number,
+    maxQueueSize?: number
+  }
+
+  export interface SimulationConfig {
+    identifier?: string,
+    beaconCount?: number,
+    cycles?: number,
+    cycleInterval?: number,
+    speedup?: number,
+    churn?: number,
+    rssiNoise?: number,
+    seed?: number,
+    replay?: boolean,
+    replayLimit?: number
+  }
+
+  export interface SimulationReport {
+    cancelled: boolean,
+    cycles: number,
+    beacons: number,
+    processedCycles: number,
+    processedBeacons: number,
+    coalescedCycles: number,
+    elapsed: number,
+    cyclesPerSecond: number,
+    beaconsPerSecond: number,
+    latencySamples: number,
+    latencyP50: number,
+    latencyP95: number,
+    latencyP99: number,
+    latencyMax: number,
+    pipelineDropped: number,
+    heapStart: number,
+    heapPeak: number,
+    heapEnd: number,
+    heapGrowth: number,
+    events: { [eventName: string]: number }
+  }
+
+  export interface EventPipelineStats {
+    queueDepth: number,
+    capacity: number,
+    taskCapacity: number,
+    dropped: number,
+    droppedTasks: number,
+    processed: number
+  }
   class Beacons {
     ///////////////////////////////////////////////////////
     // iOS only
@@ -47,6 +244,12 @@ declare module 'react-native-beacons-manager' {
     ///////////////////////////////////////////////////////
     ARMA_RSSI_FILTER: string;
     RUNNING_AVG_RSSI_FILTER: string;
+    PAYLOAD_FORMAT_MAP: number;
+    PAYLOAD_FORMAT_COMPACT: number;
+    LOG_LEVEL_DEBUG: number;
+    LOG_LEVEL_INFO: number;
+    LOG_LEVEL_WARN: number;
+    LOG_LEVEL_ERROR: number;
     PARSER_IBEACON: string;
     PARSER_ESTIMOTE: string;
     PARSER_ALTBEACON: string;
@@ -58,6 +261,14 @@ declare module 'react-native-beacons-manager' {
       flag: boolean
     ): void;
 
+    setLogLevel(
+      level: number
+    ): void;
+
+    setTraceEnabled(
+      enabled: boolean
+    ): void;
+
     detectIBeacons(): void;
 
     detectAltBeacons(): void;
@@ -86,6 +297,16 @@ declare module 'react-native-beacons-manager' {
       period: number
     ): void;
 
+    setAdaptiveScanConfig(
+      config: AdaptiveScanConfig
+    ): void;
+
+    setParsers(
+      parsers: Array<string>
+    ): Promise<any>;
+
+    getParserStats(): Promise<Array<ParserStats>>;
+
     enableForegroundServiceScanning(config: {
       activity: string,
       channelId: string,
@@ -101,14 +322,113 @@ declare module 'react-native-beacons-manager' {
       avgModifier: number
     ): void;
 
+    setRangingBatchConfig(
+      config: RangingBatchConfig
+    ): void;
+
+    setRangingDeltaConfig(
+      config: RangingDeltaConfig
+    ): void;
+
+    setRegionDebounceConfig(
+      config: RegionDebounceConfig
+    ): void;
+
+    setBeaconFilter(
+      config: BeaconFilterConfig
+    ): Promise<any>;
+
+    setZones(
+      config: ZonesConfig
+    ): Promise<any>;
+
+    setPositioningConfig(
+      config: PositioningConfig
+    ): Promise<any>;
+
+    setRangingPayloadFormat(
+      format: number
+    ): void;
+
+    setRangingBufferConfig(
+      config: RangingBufferConfig
+    ): void;
+
+    readRangingBuffer(
+      maxRecords?: number
+    ): RangingBufferReadings;
+
+    setBeaconTrackingConfig(
+      config: BeaconTrackingConfig
+    ): void;
+
+    setSightingRecorderConfig(
+      config: SightingRecorderConfig
+    ): void;
+
+    getSightings(
+      offset: number,
+      limit: number
+    ): Promise<SightingsPage>;
+
+    clearSightings(): Promise<void>;
+
+    setTelemetryConfig(
+      config: TelemetryConfig
+    ): Promise<any>;
+
+    flushTelemetry(): Promise<any>;
+
+    startSimulation(
+      config: SimulationConfig
+    ): Promise<SimulationReport>;
+
+    stopSimulation(): void;
+
+    getEventPipelineStats(): Promise<EventPipelineStats>;
+
+    getStats(): Promise<any>;
+
+    resetStats(): void;
+
     getRangedRegions(): Promise<any>;
 
+    getRangedBeacons(
+      query?: RangedBeaconsQuery
+    ): { regions: Array<any> };
+
+    addRangingSubscription(
+      subscriptionId: string,
+      options?: RangingSubscriptionOptions
+    ): Promise<any>;
+
+    removeRangingSubscription(
+      subscriptionId: string
+    ): Promise<boolean>;
+
+    setRangingSubscriptionsOnly(
+      subscriptionsOnly: boolean
+    ): void;
+
     getMonitoredRegions(): Promise<Array<BeaconRegion>>;
 
     cleanUpRegions(): Promise<void>;
 
     checkTransmissionSupported(): Promise<number>;
 
+    startRangingBeaconsInRegionWithOptions(
+      region: BeaconRegion,
+      options: RangingOptions
+    ): Promise<any>;
+
+    setBackgroundMonitorBatchHandler(
+      handler: (event: BackgroundMonitorBatchEvent) => Promise<void>
+    ): void;
+
+    setHeadlessKeepWarmTimeout(
+      timeout: number
+    ): void;
+
     ///////////////////////////////////////////////////////
     // common iOS and Android
     ///////////////////////////////////////////////////////
@@ -165,6 +485,18 @@ declare module 'react-native-beacons-manager' {
       region: BeaconRegion
     ): void;
 
+    startMonitoringForRegions(
+      regions: Array<BeaconRegion>
+    ): Promise<any>;
+
+    startRangingBeaconsInRegions(
+      regions: Array<BeaconRegion>
+    ): Promise<any>;
+
+    stopRegions(
+      identifiers: Array<string>
+    ): Promise<any>;
+
     setBackgroundMonitorHandler(
       handler: (event: BackgroundMonitorEvent) => Promise<void>
     ): void;